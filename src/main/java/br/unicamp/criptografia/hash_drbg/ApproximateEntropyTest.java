@@ -0,0 +1,65 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Gamma;
+
+import java.security.InvalidParameterException;
+import java.util.List;
+
+/**
+ * 2.12 Approximate Entropy Test, on the (m + 1)-bit pattern counts and the m-bit counts folded from them.
+ */
+public class ApproximateEntropyTest implements Sp80022Test {
+    static final String NAME = "ApproximateEntropy";
+    private final int blockLength;
+
+    /**
+     * @param blockLength m, with m < log2(n) - 5 as 2.12.7 recommends
+     */
+    public ApproximateEntropyTest(int blockLength) {
+        if (blockLength < 1 || blockLength >= SerialTest.MAX_PATTERN_LENGTH) {
+            throw new InvalidParameterException("Invalid block length: " + blockLength);
+        }
+        this.blockLength = blockLength;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<TestResult> run(BitSequence sequence, double significanceLevel) {
+        long length = sequence.length();
+
+        // 2.12.4 (1), (2) and (5)
+        long[] counts = SerialTest.patternCounts(sequence, blockLength + 1);
+        double phiPlus1 = phi(counts, length);
+        double phi = phi(SerialTest.fold(counts), length);
+
+        // 2.12.4 (6)
+        double approximateEntropy = phi - phiPlus1;
+        double chiSquareStatisticObserved = 2.0 * length * (Math.log(2) - approximateEntropy);
+
+        // 2.12.4 (7)
+        double pValue = Gamma.regularizedGammaQ(Math.pow(2, blockLength - 1), chiSquareStatisticObserved / 2);
+        return List.of(TestResult.of(NAME, chiSquareStatisticObserved, pValue, significanceLevel));
+    }
+
+    /**
+     * 2.12.4 (3) and (4): phi = sum C_i ln C_i, with C_i = count_i / n
+     */
+    static double phi(long[] counts, long length) {
+        double phi = 0;
+        for (long count : counts) {
+            if (count > 0) {
+                double proportion = (double) count / length;
+                phi += proportion * Math.log(proportion);
+            }
+        }
+        return phi;
+    }
+
+    public int getBlockLength() {
+        return blockLength;
+    }
+}
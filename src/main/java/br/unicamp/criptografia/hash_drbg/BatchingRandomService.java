@@ -0,0 +1,218 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.security.InvalidParameterException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous front end over a {@link Drbg} for many small requests: requests are queued, a batch of
+ * them is served by one generate call, and the output is split between them in queue order.
+ * <p>
+ * A virtual thread takes the first queued request, waits up to the batch window for more until the batch holds
+ * {@code maxBatchBytes}, and generates. Requests larger than a batch are generated on their own. Futures complete on
+ * a virtual thread of their batch, so dependent actions never hold up the next batch.
+ * <p>
+ * The queue is bounded: {@link #generate(int)} blocks while it is full. Call {@link #close()} to serve the queued
+ * requests and stop.
+ */
+public class BatchingRandomService implements AutoCloseable {
+    public static final int DEFAULT_MAX_BATCH_BYTES = 4096;
+    public static final Duration DEFAULT_BATCH_WINDOW = Duration.ofNanos(100_000);
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private final Drbg drbg;
+    private final int maxBatchBytes;
+    private final long batchWindowNanos;
+    private final BlockingQueue<Request> queue;
+    private final ExecutorService completions = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread batcher;
+    private final byte[] batchBuffer;
+    private volatile boolean closed;
+    private volatile long batches;
+    private volatile long requests;
+    /**
+     * taken from the queue when it did not fit in a batch, so it starts the next one; only the batcher uses it
+     */
+    private Request carried;
+
+    private record Request(int length, CompletableFuture<byte[]> result) {
+    }
+
+    public BatchingRandomService(Drbg drbg) {
+        this(drbg, DEFAULT_MAX_BATCH_BYTES, DEFAULT_BATCH_WINDOW, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param maxBatchBytes most bytes generated by one batch
+     * @param batchWindow   longest wait for more requests once a batch has one; zero takes only those already queued
+     * @param queueCapacity requests queued before {@link #generate(int)} blocks
+     */
+    public BatchingRandomService(Drbg drbg, int maxBatchBytes, Duration batchWindow,
+                                 int queueCapacity) {
+        if (maxBatchBytes <= 0 || batchWindow.isNegative() || queueCapacity <= 0) {
+            throw new InvalidParameterException("Invalid batching: " + maxBatchBytes + " bytes, " + batchWindow
+                    + ", " + queueCapacity + " queued requests");
+        }
+        this.drbg = drbg;
+        this.maxBatchBytes = maxBatchBytes;
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchBuffer = new byte[maxBatchBytes];
+        batcher = Thread.ofVirtual().name("random-batcher").start(this::batchLoop);
+    }
+
+    /**
+     * @return a future completed with {@code length} random bytes, or exceptionally if the generator fails or the
+     * service is closed
+     */
+    public CompletableFuture<byte[]> generate(int length) {
+        if (length <= 0) {
+            throw new InvalidParameterException("Invalid length: " + length);
+        }
+        Request request = new Request(length, new CompletableFuture<>());
+        if (closed) {
+            request.result().completeExceptionally(new IllegalStateException("Random service is closed"));
+            return request.result();
+        }
+        try {
+            queue.put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            request.result().completeExceptionally(e);
+            return request.result();
+        }
+        // the batcher may have drained the queue for the last time before the put
+        if (closed && queue.remove(request)) {
+            request.result().completeExceptionally(new IllegalStateException("Random service is closed"));
+        }
+        return request.result();
+    }
+
+    /**
+     * @return batches generated so far
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * @return requests served so far
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Serves the requests already queued and stops; later requests fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        batcher.interrupt();
+        try {
+            batcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        completions.close();
+    }
+
+    private void batchLoop() {
+        List<Request> batch = new ArrayList<>();
+        while (true) {
+            Request first = carried;
+            carried = null;
+            if (first == null) {
+                try {
+                    first = closed ? queue.poll() : queue.take();
+                } catch (InterruptedException e) {
+                    // closing: serve what is queued
+                    continue;
+                }
+            }
+            if (first == null) {
+                return;
+            }
+
+            batch.add(first);
+            int bytes = first.length();
+            long deadline = System.nanoTime() + batchWindowNanos;
+            while (bytes < maxBatchBytes) {
+                Request next = nextWithin(deadline);
+                if (next == null) {
+                    break;
+                }
+                if (bytes + next.length() > maxBatchBytes) {
+                    carried = next;
+                    break;
+                }
+                batch.add(next);
+                bytes += next.length();
+            }
+
+            serve(batch, bytes);
+            batch.clear();
+        }
+    }
+
+    private Request nextWithin(long deadline) {
+        Request next = queue.poll();
+        if (next != null || closed) {
+            return next;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return null;
+        }
+        try {
+            return queue.poll(remaining, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            // closing: no more waiting
+            return queue.poll();
+        }
+    }
+
+    private void serve(List<Request> batch, int bytes) {
+        List<byte[]> outputs = new ArrayList<>(batch.size());
+        Throwable failure = null;
+        try {
+            if (bytes > maxBatchBytes) {
+                // a single request larger than a batch
+                byte[] output = new byte[bytes];
+                drbg.generate(output, 0, bytes);
+                outputs.add(output);
+            } else {
+                drbg.generate(batchBuffer, 0, bytes);
+                int offset = 0;
+                for (Request request : batch) {
+                    outputs.add(Arrays.copyOfRange(batchBuffer, offset, offset + request.length()));
+                    offset += request.length();
+                }
+                Arrays.fill(batchBuffer, 0, bytes, (byte) 0);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        batches++;
+        requests += batch.size();
+
+        List<Request> served = List.copyOf(batch);
+        Throwable batchFailure = failure;
+        completions.execute(() -> {
+            for (int i = 0; i < served.size(); i++) {
+                if (batchFailure != null) {
+                    served.get(i).result().completeExceptionally(batchFailure);
+                } else {
+                    served.get(i).result().complete(outputs.get(i));
+                }
+            }
+        });
+    }
+}
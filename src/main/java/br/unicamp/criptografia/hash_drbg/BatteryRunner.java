@@ -0,0 +1,122 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Gamma;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Tests m independent sequences from a {@link Drbg} and judges the battery as SP 800-22 section 4
+ * does: by the proportion of sequences passing each test and by the uniformity of their P-values.
+ * <p>
+ * Each sequence is generated and tested by one task on the common fork/join pool with its own generator instance;
+ * the stream collects their results in sequence order, so they share no locks.
+ */
+public class BatteryRunner {
+    private static final int BINS = 10;
+    private final int numberOfSequences;
+    private final long sequenceLength;
+    private final double significanceLevel;
+    private final Supplier<? extends Drbg> generators;
+
+    /**
+     * @param sequenceLength bits per sequence, a multiple of 8
+     */
+    public BatteryRunner(int numberOfSequences, long sequenceLength) {
+        this(numberOfSequences, sequenceLength, DrbgMechanism.HASH_SHA256);
+    }
+
+    /**
+     * @param sequenceLength bits per sequence, a multiple of 8
+     */
+    public BatteryRunner(int numberOfSequences, long sequenceLength, DrbgMechanism mechanism) {
+        this(numberOfSequences, sequenceLength, Sp80022Suite.DEFAULT_SIGNIFICANCE_LEVEL,
+                () -> new BouncyCastleDRBG(mechanism, CryptoHelper.generateNonce(128),
+                        CryptoHelper.generatePersonalizationString()));
+    }
+
+    /**
+     * @param numberOfSequences positive
+     * @param sequenceLength    bits per sequence, a positive multiple of 8
+     * @param generators        called once per sequence; each instance must be independently seeded
+     */
+    public BatteryRunner(int numberOfSequences, long sequenceLength, double significanceLevel,
+                         Supplier<? extends Drbg> generators) {
+        if (numberOfSequences <= 0) {
+            throw new InvalidParameterException("Invalid number of sequences: " + numberOfSequences);
+        }
+        if (sequenceLength <= 0 || sequenceLength % 8 != 0) {
+            throw new InvalidParameterException("sequenceLength must be a positive multiple of 8: " + sequenceLength);
+        }
+        this.numberOfSequences = numberOfSequences;
+        this.sequenceLength = sequenceLength;
+        this.significanceLevel = significanceLevel;
+        this.generators = generators;
+    }
+
+    /**
+     * @return one summary per test name, in the order the suite reports them, over the sequences that report it: like
+     * the NIST assessment, the random excursions tests only count the sequences with enough cycles
+     */
+    public List<TestSummary> run() {
+        List<List<TestResult>> results = runSequences();
+
+        Map<String, List<TestResult>> byTest = new LinkedHashMap<>();
+        for (List<TestResult> sequenceResults : results) {
+            for (TestResult result : sequenceResults) {
+                byTest.computeIfAbsent(result.name(), name -> new ArrayList<>()).add(result);
+            }
+        }
+
+        List<TestSummary> summaries = new ArrayList<>(byTest.size());
+        byTest.forEach((name, testResults) -> summaries.add(summarize(name, testResults, significanceLevel)));
+        return summaries;
+    }
+
+    /**
+     * @return the suite results of every sequence, indexed by sequence
+     */
+    List<List<TestResult>> runSequences() {
+        int bytesPerSequence = Math.toIntExact(sequenceLength / 8);
+        return IntStream.range(0, numberOfSequences).parallel().mapToObj(sequence -> {
+            byte[] randomBytes = new byte[bytesPerSequence];
+            generators.get().generate(randomBytes, 0, randomBytes.length);
+            return new Sp80022Suite(significanceLevel).run(BitSequence.fromBytes(randomBytes));
+        }).toList();
+    }
+
+    static TestSummary summarize(String name, List<TestResult> results, double significanceLevel) {
+        int sequences = results.size();
+        int passed = 0;
+        int[] histogram = new int[BINS];
+        for (TestResult result : results) {
+            if (result.passed()) {
+                passed++;
+            }
+            histogram[Math.min((int) (result.pValue() * BINS), BINS - 1)]++;
+        }
+
+        // 4.2.1: p^ +- 3 sqrt(p^ (1 - p^) / m)
+        double expectedProportion = 1 - significanceLevel;
+        double margin = 3 * Math.sqrt(expectedProportion * significanceLevel / sequences);
+        double proportion = (double) passed / sequences;
+        boolean proportionAcceptable = proportion >= expectedProportion - margin
+                && proportion <= expectedProportion + margin;
+
+        // 4.2.2
+        double expected = (double) sequences / BINS;
+        double chiSquare = 0.0;
+        for (int count : histogram) {
+            chiSquare += (count - expected) * (count - expected) / expected;
+        }
+        double uniformityPValue = Gamma.regularizedGammaQ((BINS - 1) / 2.0, chiSquare / 2);
+
+        return new TestSummary(name, sequences, passed, proportionAcceptable, histogram, chiSquare,
+                uniformityPValue);
+    }
+}
@@ -0,0 +1,61 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.security.InvalidParameterException;
+import java.util.List;
+
+/**
+ * Streaming {@link BinaryMatrixRankTest}: only the matrix being filled is kept.
+ */
+public class BinaryMatrixRankAccumulator implements StreamingSp80022Test {
+    private final BinaryMatrixRankTest test;
+    private final int columns;
+    private final int[] matrix;
+    private final long[] ranks = new long[3];
+    private int row;
+    private int bitsInRow;
+    private int rowIndex;
+
+    public BinaryMatrixRankAccumulator() {
+        this(new BinaryMatrixRankTest());
+    }
+
+    public BinaryMatrixRankAccumulator(BinaryMatrixRankTest test) {
+        this.test = test;
+        this.columns = test.getNumberOfMatrixColumnsQ();
+        this.matrix = new int[test.getNumberOfMatrixRowsM()];
+    }
+
+    @Override
+    public String name() {
+        return test.name();
+    }
+
+    @Override
+    public void update(long word, int bits) {
+        while (bits > 0) {
+            int take = Math.min(bits, columns - bitsInRow);
+            row = (int) ((long) row << take | word >>> (Long.SIZE - take));
+            word <<= take;
+            bits -= take;
+            bitsInRow += take;
+            if (bitsInRow == columns) {
+                matrix[rowIndex++] = row;
+                row = 0;
+                bitsInRow = 0;
+                if (rowIndex == matrix.length) {
+                    ranks[test.rankClass(BinaryMatrixRankTest.calculateBinaryRank(matrix, columns))]++;
+                    rowIndex = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<TestResult> finish(double significanceLevel) {
+        if (ranks[0] + ranks[1] + ranks[2] == 0) {
+            throw new InvalidParameterException("Random bits are shorter than one " + matrix.length + " x "
+                    + columns + " matrix");
+        }
+        return List.of(BinaryMatrixRankTest.evaluate(ranks, significanceLevel));
+    }
+}
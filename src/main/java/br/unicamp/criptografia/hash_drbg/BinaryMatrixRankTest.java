@@ -0,0 +1,223 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.security.InvalidParameterException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 2.5 Binary Matrix Rank Test.
+ * <p>
+ * Each matrix row is held in one {@code int}, first column in the most significant used bit, so eliminating a row
+ * is a single XOR. Matrices are independent and are ranked in parallel on the common fork/join pool.
+ * <p>
+ * The reference distribution is the one of 32 x 32 matrices, which NIST also applies to the 3 x 3 example of 2.5.8.
+ */
+public class BinaryMatrixRankTest implements Sp80022Test {
+    public static final int DEFAULT_MATRIX_SIZE = 32;
+    static final String NAME = "Rank";
+    private static final double P_FULL_RANK = rankProbability(DEFAULT_MATRIX_SIZE);
+    private static final double P_DEFICIENT_RANK = rankProbability(DEFAULT_MATRIX_SIZE - 1);
+    private static final double P_LOWER_RANK = 1 - P_FULL_RANK - P_DEFICIENT_RANK;
+    /**
+     * Matrices ranked by one fork/join leaf, about a few hundred microseconds of work.
+     */
+    private static final int MATRICES_PER_TASK = 2048;
+    private final int numberOfMatrixRowsM;
+    private final int numberOfMatrixColumnsQ;
+
+    public BinaryMatrixRankTest() {
+        this(DEFAULT_MATRIX_SIZE, DEFAULT_MATRIX_SIZE);
+    }
+
+    /**
+     * @param numberOfMatrixColumnsQ at most 32, the width of a packed row
+     */
+    public BinaryMatrixRankTest(int numberOfMatrixRowsM, int numberOfMatrixColumnsQ) {
+        if (numberOfMatrixRowsM < 1 || numberOfMatrixColumnsQ < 1 || numberOfMatrixColumnsQ > Integer.SIZE) {
+            throw new InvalidParameterException("Invalid matrix size: " + numberOfMatrixRowsM + " x "
+                    + numberOfMatrixColumnsQ);
+        }
+        this.numberOfMatrixRowsM = numberOfMatrixRowsM;
+        this.numberOfMatrixColumnsQ = numberOfMatrixColumnsQ;
+    }
+
+    /**
+     * @return 38 matrices, the minimum SP 800-22 recommends
+     */
+    public static long minimumLength(int rows, int columns) {
+        return 38L * rows * columns;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<TestResult> run(BitSequence sequence, double significanceLevel) {
+        // 2.5.4 (1)
+        long disjointBlocksN = sequence.length() / ((long) numberOfMatrixRowsM * numberOfMatrixColumnsQ);
+        if (disjointBlocksN == 0) {
+            throw new InvalidParameterException("Random bits are shorter than one " + numberOfMatrixRowsM + " x "
+                    + numberOfMatrixColumnsQ + " matrix");
+        }
+
+        // 2.5.4 (2) and (3)
+        long[] ranks = getFullDeficientAndLowerRanks(sequence, disjointBlocksN);
+        return List.of(evaluate(ranks, significanceLevel));
+    }
+
+    int getNumberOfMatrixRowsM() {
+        return numberOfMatrixRowsM;
+    }
+
+    int getNumberOfMatrixColumnsQ() {
+        return numberOfMatrixColumnsQ;
+    }
+
+    /**
+     * @return 0 for full rank, 1 for rank M - 1 and 2 for lower ranks
+     */
+    int rankClass(int rank) {
+        if (rank == numberOfMatrixRowsM) {
+            return 0;
+        }
+        return rank == numberOfMatrixRowsM - 1 ? 1 : 2;
+    }
+
+    /**
+     * @param ranks the full, deficient and lower rank counts
+     */
+    static TestResult evaluate(long[] ranks, double significanceLevel) {
+        long disjointBlocksN = ranks[0] + ranks[1] + ranks[2];
+        long fullRank = ranks[0];
+        long deficientRankCount = ranks[1];
+        long lowerRankCount = ranks[2];
+
+        // 2.5.4 (4)
+        double chiSquareStatisticObserved =
+                chiSquareTerm(fullRank, disjointBlocksN * P_FULL_RANK)
+                        + chiSquareTerm(deficientRankCount, disjointBlocksN * P_DEFICIENT_RANK)
+                        + chiSquareTerm(lowerRankCount, disjointBlocksN * P_LOWER_RANK);
+
+        // 2.5.4 (5)
+        double pValue = Math.exp(-chiSquareStatisticObserved / 2);
+        return TestResult.of(NAME, chiSquareStatisticObserved, pValue, significanceLevel);
+    }
+
+    long[] getFullDeficientAndLowerRanks(BitSequence sequence, long disjointBlocksN) {
+        if (disjointBlocksN <= MATRICES_PER_TASK) {
+            return getFullDeficientAndLowerRanks(sequence, 0, disjointBlocksN);
+        }
+        return ForkJoinPool.commonPool().invoke(new RankTask(sequence, 0, disjointBlocksN));
+    }
+
+    /**
+     * Ranks matrices {@code [fromBlock, toBlock)} on the calling thread.
+     *
+     * @return the full, deficient (M - 1) and lower rank counts
+     */
+    long[] getFullDeficientAndLowerRanks(BitSequence sequence, long fromBlock, long toBlock) {
+        long[] ranks = new long[3];
+        int[] matrix = new int[numberOfMatrixRowsM];
+        long bitsPerMatrix = (long) numberOfMatrixRowsM * numberOfMatrixColumnsQ;
+        for (long block = fromBlock; block < toBlock; block++) {
+            fillMatrix(sequence, block * bitsPerMatrix, matrix);
+            ranks[rankClass(calculateBinaryRank(matrix, numberOfMatrixColumnsQ))]++;
+        }
+        return ranks;
+    }
+
+    private void fillMatrix(BitSequence sequence, long start, int[] matrix) {
+        if (numberOfMatrixColumnsQ == Integer.SIZE && (start & 63) == 0) {
+            // two rows per word
+            int firstWord = (int) (start >>> 6);
+            for (int i = 0; i + 1 < numberOfMatrixRowsM; i += 2) {
+                long word = sequence.word(firstWord + i / 2);
+                matrix[i] = (int) (word >>> 32);
+                matrix[i + 1] = (int) word;
+            }
+            if ((numberOfMatrixRowsM & 1) == 1) {
+                matrix[numberOfMatrixRowsM - 1] = (int) (sequence.word(firstWord + numberOfMatrixRowsM / 2) >>> 32);
+            }
+            return;
+        }
+        for (int i = 0; i < numberOfMatrixRowsM; i++) {
+            matrix[i] = (int) sequence.bits(start + (long) i * numberOfMatrixColumnsQ, numberOfMatrixColumnsQ);
+        }
+    }
+
+    /**
+     * Gaussian elimination over GF(2) on packed rows; every column that has a pivot contributes one to the rank.
+     * The rows are modified in place.
+     */
+    static int calculateBinaryRank(int[] rows, int columns) {
+        int rank = 0;
+        for (int column = columns - 1; column >= 0 && rank < rows.length; column--) {
+            int mask = 1 << column;
+            int pivot = rank;
+            while (pivot < rows.length && (rows[pivot] & mask) == 0) {
+                pivot++;
+            }
+            if (pivot == rows.length) {
+                continue;
+            }
+
+            int pivotRow = rows[pivot];
+            rows[pivot] = rows[rank];
+            rows[rank] = pivotRow;
+            for (int i = rank + 1; i < rows.length; i++) {
+                // branch-free: XOR the pivot row in when the row has this column set
+                rows[i] ^= pivotRow & -((rows[i] >>> column) & 1);
+            }
+            rank++;
+        }
+        return rank;
+    }
+
+    private static double chiSquareTerm(long observed, double expected) {
+        return (observed - expected) * (observed - expected) / expected;
+    }
+
+    /**
+     * @return probability that a random size x size binary matrix has rank {@code rank} (3.5)
+     */
+    static double rankProbability(int rank) {
+        int size = DEFAULT_MATRIX_SIZE;
+        double product = 1.0;
+        for (int i = 0; i < rank; i++) {
+            double factor = 1 - Math.pow(2, i - size);
+            product *= factor * factor / (1 - Math.pow(2, i - rank));
+        }
+        return Math.pow(2, rank * (2.0 * size - rank) - (double) size * size) * product;
+    }
+
+    private class RankTask extends RecursiveTask<long[]> {
+        private final BitSequence sequence;
+        private final long fromBlock;
+        private final long toBlock;
+
+        RankTask(BitSequence sequence, long fromBlock, long toBlock) {
+            this.sequence = sequence;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (toBlock - fromBlock <= MATRICES_PER_TASK) {
+                return getFullDeficientAndLowerRanks(sequence, fromBlock, toBlock);
+            }
+            long middle = (fromBlock + toBlock) >>> 1;
+            RankTask left = new RankTask(sequence, fromBlock, middle);
+            left.fork();
+            long[] right = new RankTask(sequence, middle, toBlock).compute();
+            long[] ranks = left.join();
+            for (int i = 0; i < ranks.length; i++) {
+                ranks[i] += right[i];
+            }
+            return ranks;
+        }
+    }
+}
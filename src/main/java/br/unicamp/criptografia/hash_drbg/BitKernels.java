@@ -0,0 +1,79 @@
+package br.unicamp.criptografia.hash_drbg;
+
+/**
+ * Population count and transition count over ranges of packed words, the inner loops of the frequency, block
+ * frequency and runs tests.
+ * <p>
+ * When the JVM runs with {@code --add-modules jdk.incubator.vector}, the loops run over {@code LongVector} lanes,
+ * see {@link VectorBitKernels}; otherwise, or with {@code -D}{@value #VECTOR_PROPERTY}{@code =false}, they run a
+ * word at a time. Both give the same counts.
+ */
+final class BitKernels {
+    static final String VECTOR_PROPERTY = "br.unicamp.criptografia.hash_drbg.vector";
+    private static final Kernels KERNELS = load();
+
+    private BitKernels() {
+    }
+
+    /**
+     * @return the number of ones in {@code words[from, to)}
+     */
+    static long bitCount(long[] words, int from, int to) {
+        return KERNELS.bitCount(words, from, to);
+    }
+
+    /**
+     * @return the number of positions, among the bits of {@code words[from, to - 1)}, whose bit differs from the
+     * next one; the last of them is compared with the first bit of {@code words[to - 1]}
+     */
+    static long transitions(long[] words, int from, int to) {
+        return KERNELS.transitions(words, from, to);
+    }
+
+    static boolean isVectorized() {
+        return !(KERNELS instanceof Scalar);
+    }
+
+    private static Kernels load() {
+        if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return new Scalar();
+        }
+        try {
+            // loaded by name: resolving VectorBitKernels fails when the incubator module is absent
+            return (Kernels) Class.forName(BitKernels.class.getPackageName() + ".VectorBitKernels")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new Scalar();
+        }
+    }
+
+    interface Kernels {
+
+        long bitCount(long[] words, int from, int to);
+
+        long transitions(long[] words, int from, int to);
+    }
+
+    static final class Scalar implements Kernels {
+
+        @Override
+        public long bitCount(long[] words, int from, int to) {
+            long ones = 0;
+            for (int i = from; i < to; i++) {
+                ones += Long.bitCount(words[i]);
+            }
+            return ones;
+        }
+
+        @Override
+        public long transitions(long[] words, int from, int to) {
+            long transitions = 0;
+            for (int i = from; i < to - 1; i++) {
+                transitions += Long.bitCount(words[i] ^ (words[i] << 1 | words[i + 1] >>> 63));
+            }
+            return transitions;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Immutable sequence of bits packed 64 per {@code long}.
+ * <p>
+ * Bit {@code i} of the sequence is stored most significant bit first: it lives in word {@code i / 64} at position
+ * {@code 63 - i % 64}, so the words read in order are the big-endian view of the generator output. Bits past
+ * {@link #length()} in the last word are always zero.
+ * <p>
+ * The words are either a {@code long[]} or, for {@link BitSequenceFiles#mapBinary}, read-only buffers over a mapped
+ * file, which are read in place.
+ */
+public final class BitSequence {
+    private static final VarHandle BIG_ENDIAN_LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    /**
+     * Words per mapped segment; a {@link ByteBuffer} addresses at most 2^31 bytes.
+     */
+    static final int SEGMENT_WORD_BITS = 27;
+    /**
+     * Words copied at a time out of mapped segments for the {@link BitKernels}.
+     */
+    private static final int CHUNK_WORDS = 4096;
+    private final long[] words;
+    private final ByteBuffer[] segments;
+    private final long length;
+
+    private BitSequence(long[] words, long length) {
+        this.words = words;
+        this.segments = null;
+        this.length = length;
+    }
+
+    private BitSequence(ByteBuffer[] segments, long length) {
+        this.words = null;
+        this.segments = segments;
+        this.length = length;
+    }
+
+    public static BitSequence fromBytes(byte[] bytes) {
+        return fromBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @return the {@code 8 * length} bits of {@code bytes[offset, offset + length)}, each byte most significant bit
+     * first, as {@link CryptoHelper#bytesToBits(byte[])} renders them
+     */
+    public static BitSequence fromBytes(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        long[] words = new long[(length + 7) / 8];
+        int fullWords = length / 8;
+        for (int i = 0; i < fullWords; i++) {
+            words[i] = readWord(bytes, offset + i * 8);
+        }
+        if (fullWords < words.length) {
+            words[fullWords] = readPartialWord(bytes, offset + fullWords * 8, length - fullWords * 8);
+        }
+        return new BitSequence(words, 8L * length);
+    }
+
+    /**
+     * @return {@code bytes[offset, offset + 8)} as a big-endian word
+     */
+    static long readWord(byte[] bytes, int offset) {
+        return (long) BIG_ENDIAN_LONGS.get(bytes, offset);
+    }
+
+    /**
+     * @param count fewer than 8 bytes
+     * @return {@code bytes[offset, offset + count)} in the most significant bytes of a word, the rest zero
+     */
+    static long readPartialWord(byte[] bytes, int offset, int count) {
+        long word = 0;
+        for (int i = 0; i < count; i++) {
+            word |= (bytes[offset + i] & 0xFFL) << (56 - 8 * i);
+        }
+        return word;
+    }
+
+    /**
+     * @param bits characters '0' and '1', as in the NIST SP 800-22 examples
+     */
+    public static BitSequence fromString(CharSequence bits) {
+        int length = bits.length();
+        long[] words = new long[wordsFor(length)];
+        for (int i = 0; i < length; i++) {
+            char bit = bits.charAt(i);
+            if (bit == '1') {
+                words[i >>> 6] |= 1L << (63 - (i & 63));
+            } else if (bit != '0') {
+                throw new InvalidParameterException("Not a bit at position " + i + ": " + bit);
+            }
+        }
+        return new BitSequence(words, length);
+    }
+
+    /**
+     * Reads the words in place from big-endian buffers of {@code 8 << SEGMENT_WORD_BITS} bytes each, the last one
+     * possibly shorter; {@code length} is eight times their total size.
+     */
+    static BitSequence wrap(ByteBuffer[] segments, long length) {
+        return new BitSequence(segments, length);
+    }
+
+    /**
+     * Wraps already packed words without copying; bits past {@code length} must be zero.
+     */
+    static BitSequence wrap(long[] words, long length) {
+        if (wordsFor(length) > words.length) {
+            throw new InvalidParameterException("Length " + length + " does not fit in " + words.length + " words");
+        }
+        return new BitSequence(words, length);
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public int wordCount() {
+        return wordsFor(length);
+    }
+
+    /**
+     * @return the 64 bits starting at bit {@code 64 * index}, first bit in the most significant position
+     */
+    public long word(int index) {
+        Objects.checkIndex(index, wordCount());
+        return wordAt(index);
+    }
+
+    public int bit(long index) {
+        Objects.checkIndex(index, length);
+        return (int) (wordAt((int) (index >>> 6)) >>> (63 - (index & 63))) & 1;
+    }
+
+    /**
+     * @param count between 0 and 64
+     * @return bits {@code [from, from + count)} right-aligned, the first of them in the most significant position
+     */
+    public long bits(long from, int count) {
+        Objects.checkFromIndexSize(from, count, length);
+        if (count == 0) {
+            return 0;
+        }
+        if (count > Long.SIZE) {
+            throw new InvalidParameterException("At most 64 bits can be read at once: " + count);
+        }
+        int wordIndex = (int) (from >>> 6);
+        int shift = (int) (from & 63);
+        long value = wordAt(wordIndex) << shift;
+        if (shift + count > Long.SIZE) {
+            value |= wordAt(wordIndex + 1) >>> (Long.SIZE - shift);
+        }
+        return value >>> (Long.SIZE - count);
+    }
+
+    public BitSequence slice(long from, long sliceLength) {
+        Objects.checkFromIndexSize(from, sliceLength, length);
+        long[] sliceWords = new long[wordsFor(sliceLength)];
+        long position = from;
+        for (int i = 0; i < sliceWords.length; i++) {
+            int count = (int) Math.min(Long.SIZE, from + sliceLength - position);
+            sliceWords[i] = bits(position, count) << (Long.SIZE - count);
+            position += count;
+        }
+        return new BitSequence(sliceWords, sliceLength);
+    }
+
+    /**
+     * @return the number of ones in the sequence
+     */
+    public long bitCount() {
+        return sumWords(0, wordCount(), 0, BitKernels::bitCount);
+    }
+
+    /**
+     * @return the number of ones in bits {@code [from, from + count)}
+     */
+    public long bitCount(long from, long count) {
+        Objects.checkFromIndexSize(from, count, length);
+        long ones = 0;
+        long end = from + count;
+        long position = from;
+        int leading = (int) Math.min(count, (Long.SIZE - (from & 63)) & 63);
+        if (leading > 0) {
+            ones += Long.bitCount(bits(position, leading));
+            position += leading;
+        }
+        int fullWords = (int) ((end - position) >>> 6);
+        if (fullWords > 0) {
+            int firstWord = (int) (position >>> 6);
+            ones += sumWords(firstWord, firstWord + fullWords, 0, BitKernels::bitCount);
+            position += (long) fullWords << 6;
+        }
+        if (position < end) {
+            ones += Long.bitCount(bits(position, (int) (end - position)));
+        }
+        return ones;
+    }
+
+    /**
+     * @return the number of positions k where bit k differs from bit k + 1. Each word is XORed with itself shifted by
+     * one, with the first bit of the next word shifted in, so every set bit of the result is one transition.
+     */
+    long transitions() {
+        if (length < 2) {
+            return 0;
+        }
+        int wordCount = wordCount();
+        long transitions = sumWords(0, wordCount, 1, BitKernels::transitions);
+        long last = wordAt(wordCount - 1);
+        long pairs = length - 1 - ((long) (wordCount - 1) << 6);
+        long differences = pairs == 0 ? 0 : (last ^ last << 1) & -1L << (Long.SIZE - pairs);
+        return transitions + Long.bitCount(differences);
+    }
+
+    /**
+     * Applies {@code kernel} to words {@code [from, to)}: on the array itself, or on copies of the mapped words in
+     * chunks that share their last {@code overlap} words with the next chunk, for kernels that read ahead.
+     */
+    private long sumWords(int from, int to, int overlap, WordKernel kernel) {
+        if (words != null) {
+            return kernel.apply(words, from, to);
+        }
+        long[] chunk = new long[CHUNK_WORDS + overlap];
+        long sum = 0;
+        for (int start = from; start < to - overlap; start += CHUNK_WORDS) {
+            int count = Math.min(to - start, CHUNK_WORDS + overlap);
+            copyWords(start, chunk, count);
+            sum += kernel.apply(chunk, 0, count);
+        }
+        return sum;
+    }
+
+    private void copyWords(int from, long[] destination, int count) {
+        for (int i = 0; i < count; ) {
+            int index = from + i;
+            LongBuffer segment = segments[index >>> SEGMENT_WORD_BITS].asLongBuffer();
+            int offset = index & ((1 << SEGMENT_WORD_BITS) - 1);
+            int whole = Math.min(count - i, segment.limit() - offset);
+            if (whole > 0) {
+                segment.get(offset, destination, i, whole);
+                i += whole;
+            } else {
+                // the partial last word of the file
+                destination[i++] = wordAt(index);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BitSequence other) || other.length != length) {
+            return false;
+        }
+        if (words != null && other.words != null) {
+            return Arrays.equals(words, 0, wordCount(), other.words, 0, wordCount());
+        }
+        for (int i = 0; i < wordCount(); i++) {
+            if (wordAt(i) != other.wordAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Long.hashCode(length);
+        for (int i = 0; i < wordCount(); i++) {
+            hash = 31 * hash + Long.hashCode(wordAt(i));
+        }
+        return hash;
+    }
+
+    /**
+     * @return the sequence as '0' and '1' characters
+     */
+    @Override
+    public String toString() {
+        StringBuilder bits = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+        for (long i = 0; i < length; i++) {
+            bits.append((char) ('0' + bit(i)));
+        }
+        return bits.toString();
+    }
+
+    private long wordAt(int index) {
+        if (words != null) {
+            return words[index];
+        }
+        ByteBuffer segment = segments[index >>> SEGMENT_WORD_BITS];
+        int offset = (index & ((1 << SEGMENT_WORD_BITS) - 1)) << 3;
+        if (segment.limit() - offset >= Long.BYTES) {
+            return segment.getLong(offset);
+        }
+        long word = 0;
+        for (int i = 0; offset + i < segment.limit(); i++) {
+            word |= (segment.get(offset + i) & 0xFFL) << (56 - 8 * i);
+        }
+        return word;
+    }
+
+    private interface WordKernel {
+
+        long apply(long[] words, int from, int to);
+    }
+
+    private static int wordsFor(long bits) {
+        return Math.toIntExact((bits + 63) >>> 6);
+    }
+}
@@ -0,0 +1,104 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+
+/**
+ * Loads captured generator output through memory-mapped files.
+ * <p>
+ * Raw binary captures are presented as a {@link BitSequence} that reads the mapping in place. ASCII captures in
+ * the '0'/'1' format of the NIST Statistical Test Suite data files are packed eight characters at a time.
+ */
+public class BitSequenceFiles {
+    private static final long SEGMENT_BYTES = 8L << BitSequence.SEGMENT_WORD_BITS;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long ASCII_ZEROS = 0x3030303030303030L;
+    /**
+     * Multiplying the eight low bits by this gathers them, first character first, into the top byte.
+     */
+    private static final long GATHER = 0x0102040810204080L;
+
+    private BitSequenceFiles() {
+    }
+
+    /**
+     * @return every byte of the file, most significant bit first, without copying it
+     */
+    public static BitSequence mapBinary(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer[] segments = new ByteBuffer[(int) ((size + SEGMENT_BYTES - 1) / SEGMENT_BYTES)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = i * SEGMENT_BYTES;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(SEGMENT_BYTES, size - position));
+            }
+            // the mappings stay valid after the channel is closed
+            return BitSequence.wrap(segments, 8 * size);
+        }
+    }
+
+    /**
+     * Packs a file of '0' and '1' characters. Whitespace, such as line breaks, is skipped.
+     *
+     * @throws InvalidParameterException on any other character
+     */
+    public static BitSequence loadAscii(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] words = new long[Math.toIntExact((size + 63) / 64)];
+            long length = 0;
+            for (long position = 0; position < size; position += SEGMENT_BYTES) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(SEGMENT_BYTES, size - position));
+                length = packAscii(segment, words, length, position);
+            }
+            int used = (int) ((length + 63) / 64);
+            return BitSequence.wrap(used < words.length ? Arrays.copyOf(words, used) : words, length);
+        }
+    }
+
+    /**
+     * Appends the bits of {@code ascii} to {@code words}, which already hold {@code length} bits.
+     *
+     * @return the new length
+     */
+    static long packAscii(ByteBuffer ascii, long[] words, long length, long filePosition) {
+        int limit = ascii.limit();
+        int i = 0;
+        while (i < limit) {
+            // eight characters per step while the output is byte-aligned and the input has no separators
+            if ((length & 7) == 0) {
+                for (; limit - i >= Long.BYTES; i += Long.BYTES) {
+                    long characters = ascii.getLong(i);
+                    if ((characters & ~LOW_BITS) != ASCII_ZEROS) {
+                        break;
+                    }
+                    long bits = ((characters & LOW_BITS) * GATHER) >>> 56;
+                    words[(int) (length >>> 6)] |= bits << (56 - (length & 63));
+                    length += 8;
+                }
+                if (i == limit) {
+                    break;
+                }
+            }
+
+            byte character = ascii.get(i);
+            if (character == '0' || character == '1') {
+                words[(int) (length >>> 6)] |= (long) (character - '0') << (63 - (length & 63));
+                length++;
+            } else if (!Character.isWhitespace(character)) {
+                throw new InvalidParameterException("Not a bit at offset " + (filePosition + i) + ": "
+                        + (char) character);
+            }
+            i++;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,57 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.security.InvalidParameterException;
+import java.util.List;
+
+/**
+ * Streaming {@link BlockFrequencyTest}; bits of an incomplete last block are ignored.
+ */
+public class BlockFrequencyAccumulator implements StreamingSp80022Test {
+    private final int lengthOfEachBlock;
+    private long nonOverlappingBlocks;
+    private int bitsInBlock;
+    private long onesInBlock;
+    private double sum;
+
+    public BlockFrequencyAccumulator(int lengthOfEachBlock) {
+        if (lengthOfEachBlock < 1) {
+            throw new InvalidParameterException("Invalid block size: " + lengthOfEachBlock);
+        }
+        this.lengthOfEachBlock = lengthOfEachBlock;
+    }
+
+    @Override
+    public String name() {
+        return BlockFrequencyTest.NAME;
+    }
+
+    @Override
+    public void update(long word, int bits) {
+        while (bits > 0) {
+            int take = Math.min(bits, lengthOfEachBlock - bitsInBlock);
+            if (take == Long.SIZE) {
+                onesInBlock += Long.bitCount(word);
+            } else {
+                onesInBlock += Long.bitCount(word >>> (Long.SIZE - take));
+                word <<= take;
+            }
+            bits -= take;
+            bitsInBlock += take;
+            if (bitsInBlock == lengthOfEachBlock) {
+                sum += BlockFrequencyTest.squaredDeviation(onesInBlock, lengthOfEachBlock);
+                nonOverlappingBlocks++;
+                bitsInBlock = 0;
+                onesInBlock = 0;
+            }
+        }
+    }
+
+    @Override
+    public List<TestResult> finish(double significanceLevel) {
+        if (nonOverlappingBlocks == 0) {
+            throw new InvalidParameterException("Random bits are shorter than one block: (lengthOfEachBlock) "
+                    + lengthOfEachBlock);
+        }
+        return List.of(BlockFrequencyTest.evaluate(sum, nonOverlappingBlocks, lengthOfEachBlock, significanceLevel));
+    }
+}
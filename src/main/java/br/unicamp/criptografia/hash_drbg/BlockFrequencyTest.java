@@ -0,0 +1,65 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Gamma;
+
+import java.security.InvalidParameterException;
+import java.util.List;
+
+/**
+ * 2.2 Frequency Test within a Block.
+ */
+public class BlockFrequencyTest implements Sp80022Test {
+    static final String NAME = "BlockFrequency";
+    private final int lengthOfEachBlock;
+
+    public BlockFrequencyTest(int lengthOfEachBlock) {
+        if (lengthOfEachBlock < 1) {
+            throw new InvalidParameterException("Invalid block size: " + lengthOfEachBlock);
+        }
+        this.lengthOfEachBlock = lengthOfEachBlock;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<TestResult> run(BitSequence sequence, double significanceLevel) {
+        // 2.2.4 (1)
+        long nonOverlappingBlocks = sequence.length() / lengthOfEachBlock;
+        if (nonOverlappingBlocks == 0) {
+            throw new InvalidParameterException("Random bits are shorter than one block: (length) "
+                    + sequence.length() + "; (lengthOfEachBlock) " + lengthOfEachBlock);
+        }
+
+        // 2.2.4 (2)
+        double sum = 0.0;
+        for (long block = 0; block < nonOverlappingBlocks; block++) {
+            long ones = sequence.bitCount(block * lengthOfEachBlock, lengthOfEachBlock);
+            sum += squaredDeviation(ones, lengthOfEachBlock);
+        }
+        return List.of(evaluate(sum, nonOverlappingBlocks, lengthOfEachBlock, significanceLevel));
+    }
+
+    /**
+     * @return (pi_i - 1/2)^2 for a block with {@code ones} ones
+     */
+    static double squaredDeviation(long ones, int lengthOfEachBlock) {
+        double proportionOfOnes = (double) ones / lengthOfEachBlock;
+        return (proportionOfOnes - 0.5) * (proportionOfOnes - 0.5);
+    }
+
+    /**
+     * @param sum the {@link #squaredDeviation} of every block
+     */
+    static TestResult evaluate(double sum, long nonOverlappingBlocks, int lengthOfEachBlock,
+                               double significanceLevel) {
+        // 2.2.4 (3)
+        double chiSquareStatisticObserved = 4.0 * lengthOfEachBlock * sum;
+
+        // 2.2.4 (4)
+        double pValue = Gamma.regularizedGammaQ(nonOverlappingBlocks / 2.0, chiSquareStatisticObserved / 2);
+        return TestResult.of(NAME, chiSquareStatisticObserved, pValue, significanceLevel);
+    }
+}
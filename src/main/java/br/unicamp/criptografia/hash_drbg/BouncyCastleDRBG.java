@@ -0,0 +1,381 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.bouncycastle.crypto.prng.EntropySource;
+import org.bouncycastle.crypto.prng.EntropySourceProvider;
+import org.bouncycastle.crypto.prng.drbg.SP80090DRBG;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An SP 800-90A DRBG of any {@link DrbgMechanism}.
+ * <p>
+ * A single DRBG instance is kept alive and reseeded as its {@link ReseedPolicy} says. The {@code generate} overloads
+ * fill caller-owned buffers, splitting large requests at {@link #MAX_BYTES_PER_REQUEST}. Instances are thread-safe;
+ * requests are serialized by a {@link ReentrantLock}, so a virtual thread waiting for one, or reading entropy under
+ * it, does not pin its carrier.
+ * <p>
+ * Background reseeds run on a shared daemon thread. It reads the entropy before taking the instance's lock, so
+ * requests only wait for the reseed itself, a few hash computations. If the entropy source fails there, the next
+ * request reseeds in the foreground instead, where a second failure reaches the caller.
+ */
+public class BouncyCastleDRBG implements Drbg {
+    static final int SECURITY_STRENGTH_BITS = 256;
+    private static final int SECURITY_STRENGTH_BYTES = SECURITY_STRENGTH_BITS / 8;
+    /**
+     * Largest single request accepted by Bouncy Castle's mechanisms (2^18 bits, within the SP 800-90A limit of 2^19).
+     */
+    public static final int MAX_BYTES_PER_REQUEST = (1 << 18) / 8;
+    /**
+     * Partial request lengths whose buffers are kept, so each instance holds less than this many times
+     * {@link #MAX_BYTES_PER_REQUEST} bytes of them.
+     */
+    private static final int TAIL_BUFFERS = 4;
+    private static final Executor RESEEDER = Executors.newSingleThreadExecutor(
+            runnable -> Thread.ofPlatform().daemon().name("drbg-reseed").unstarted(runnable));
+    private final DrbgMechanism mMechanism;
+    private final String mNonce;
+    private final String mPersonalizationString;
+    private final ReseedPolicy mReseedPolicy;
+    private final EntropySourceProvider mEntropySourceProvider;
+    private final ReentrantLock lock = new ReentrantLock();
+    private SP80090DRBG longLivedDrbg;
+    private PrefetchingEntropySource entropySource;
+    private byte[] chunkBuffer;
+    private final byte[][] tailBuffers = new byte[TAIL_BUFFERS][];
+    private int nextTailBuffer;
+    private long bytesSinceReseed;
+    private long requestsSinceReseed;
+    private long lastReseedNanos;
+    private boolean backgroundReseedPending;
+    /**
+     * set when a background reseed threw, cleared by the next successful reseed
+     */
+    private boolean backgroundReseedFailed;
+
+    /**
+     * Reseeds {@link ReseedPolicy#whenExhausted() when exhausted}.
+     */
+    public BouncyCastleDRBG(DrbgMechanism mechanism, String nonce, String personalizationString) {
+        this(mechanism, nonce, personalizationString, ReseedPolicy.whenExhausted());
+    }
+
+    public BouncyCastleDRBG(DrbgMechanism mechanism, String nonce, String personalizationString,
+                            ReseedPolicy reseedPolicy) {
+        this(mechanism, nonce, personalizationString, reseedPolicy, getEntropySourceProvider());
+    }
+
+    /**
+     * @param entropySourceProvider asked for sources of 256 bits, for instance a {@link BufferedEntropySource}; a
+     *                              source may be read by a background reseed and a request at the same time
+     */
+    public BouncyCastleDRBG(DrbgMechanism mechanism, String nonce, String personalizationString,
+                            ReseedPolicy reseedPolicy, EntropySourceProvider entropySourceProvider) {
+        mMechanism = Objects.requireNonNull(mechanism);
+        mNonce = nonce;
+        mPersonalizationString = personalizationString;
+        mReseedPolicy = Objects.requireNonNull(reseedPolicy);
+        mEntropySourceProvider = entropySourceProvider;
+    }
+
+    /**
+     * @return {@value #SECURITY_STRENGTH_BYTES} bytes, one request
+     */
+    @Override
+    public byte[] generate() {
+        byte[] randomBytes = new byte[SECURITY_STRENGTH_BYTES];
+        generate(randomBytes, 0, randomBytes.length);
+        return randomBytes;
+    }
+
+    @Override
+    public void generate(byte[] output, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, output.length);
+        DrbgEvents.Generate event = new DrbgEvents.Generate();
+        event.begin();
+        long start = DrbgMetrics.start();
+        lock.lock();
+        try {
+            fill(output, offset, length);
+        } finally {
+            lock.unlock();
+        }
+        DrbgMetrics.generated(length, start);
+        if (event.shouldCommit()) {
+            event.bytes = length;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void generate(ByteBuffer output) {
+        int length = output.remaining();
+        DrbgEvents.Generate event = new DrbgEvents.Generate();
+        event.begin();
+        long start = DrbgMetrics.start();
+        lock.lock();
+        try {
+            if (output.hasArray()) {
+                fill(output.array(), output.arrayOffset() + output.position(), length);
+                output.position(output.limit());
+            } else {
+                fill(output);
+            }
+        } finally {
+            lock.unlock();
+        }
+        DrbgMetrics.generated(length, start);
+        if (event.shouldCommit()) {
+            event.bytes = length;
+            event.commit();
+        }
+    }
+
+    /**
+     * Reseeds from the entropy source now, whatever the policy.
+     */
+    @Override
+    public void reseed(byte[] additionalInput) {
+        lock.lock();
+        try {
+            reseed(getLongLivedDrbg(), additionalInput, "explicit");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public DrbgMechanism getMechanism() {
+        return mMechanism;
+    }
+
+    /**
+     * @return the block size of the mechanism's primitive in bits
+     */
+    public int getBlockSize() {
+        lock.lock();
+        try {
+            return getLongLivedDrbg().getBlockSize();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ReseedPolicy getReseedPolicy() {
+        return mReseedPolicy;
+    }
+
+    private void fill(byte[] output, int offset, int length) {
+        SP80090DRBG instance = getLongLivedDrbg();
+        if (offset == 0 && length == output.length && length <= MAX_BYTES_PER_REQUEST) {
+            request(instance, output);
+            return;
+        }
+
+        int end = offset + length;
+        while (end - offset >= MAX_BYTES_PER_REQUEST) {
+            byte[] chunk = getChunkBuffer();
+            request(instance, chunk);
+            System.arraycopy(chunk, 0, output, offset, MAX_BYTES_PER_REQUEST);
+            offset += MAX_BYTES_PER_REQUEST;
+        }
+
+        int remaining = end - offset;
+        if (remaining > 0) {
+            byte[] tail = getTailBuffer(remaining);
+            request(instance, tail);
+            System.arraycopy(tail, 0, output, offset, remaining);
+        }
+    }
+
+    private void fill(ByteBuffer output) {
+        int length = output.remaining();
+        SP80090DRBG instance = getLongLivedDrbg();
+        while (length > 0) {
+            byte[] chunk = length >= MAX_BYTES_PER_REQUEST
+                    ? getChunkBuffer()
+                    : getTailBuffer(length);
+            request(instance, chunk);
+            output.put(chunk);
+            length -= chunk.length;
+        }
+    }
+
+    private void request(SP80090DRBG instance, byte[] output) {
+        long sinceReseed = System.nanoTime() - lastReseedNanos;
+        if (backgroundReseedFailed
+                || mReseedPolicy.isDue(bytesSinceReseed, requestsSinceReseed, sinceReseed, output.length)) {
+            reseed(instance, null, "policy");
+        } else if (!backgroundReseedPending
+                && mReseedPolicy.isNearlyDue(bytesSinceReseed, requestsSinceReseed, sinceReseed)) {
+            backgroundReseedPending = true;
+            RESEEDER.execute(this::backgroundReseed);
+        }
+
+        if (mReseedPolicy.isPredictionResistant()) {
+            // the generate reseeds before generating, so the event times both
+            DrbgEvents.Reseed event = new DrbgEvents.Reseed();
+            event.begin();
+            instance.generate(output, null, true);
+            reseeded(event, "prediction-resistance");
+        } else if (instance.generate(output, null, false) == -1) {
+            // reseed interval exhausted
+            reseed(instance, null, "exhausted");
+            instance.generate(output, null, false);
+        }
+        bytesSinceReseed += output.length;
+        requestsSinceReseed++;
+    }
+
+    private void backgroundReseed() {
+        PrefetchingEntropySource source;
+        lock.lock();
+        try {
+            source = entropySource;
+        } finally {
+            lock.unlock();
+        }
+        byte[] entropy;
+        try {
+            entropy = source.read();
+        } catch (RuntimeException e) {
+            // the executor would drop it; the next request retries in the foreground and throws if it fails again
+            entropy = null;
+        }
+        lock.lock();
+        try {
+            if (entropy == null) {
+                backgroundReseedFailed = true;
+            } else if (backgroundReseedPending) {
+                // unless a request reseeded in the meantime
+                source.supply(entropy);
+                reseed(longLivedDrbg, null, "background");
+            }
+        } catch (RuntimeException e) {
+            backgroundReseedFailed = true;
+        } finally {
+            backgroundReseedPending = false;
+            lock.unlock();
+        }
+    }
+
+    private void reseed(SP80090DRBG instance, byte[] additionalInput, String cause) {
+        DrbgEvents.Reseed event = new DrbgEvents.Reseed();
+        event.begin();
+        instance.reseed(additionalInput);
+        reseeded(event, cause);
+    }
+
+    private void reseeded(DrbgEvents.Reseed event, String cause) {
+        DrbgMetrics.reseeded();
+        if (event.shouldCommit()) {
+            event.cause = cause;
+            event.commit();
+        }
+        bytesSinceReseed = 0;
+        requestsSinceReseed = 0;
+        lastReseedNanos = System.nanoTime();
+        backgroundReseedPending = false;
+        backgroundReseedFailed = false;
+    }
+
+    private SP80090DRBG getLongLivedDrbg() {
+        if (longLivedDrbg == null) {
+            DrbgEvents.Instantiate event = new DrbgEvents.Instantiate();
+            event.begin();
+            entropySource = new PrefetchingEntropySource(mEntropySourceProvider.get(SECURITY_STRENGTH_BITS));
+            longLivedDrbg = mMechanism.instantiate(entropySource, mNonce.getBytes(),
+                    mPersonalizationString.getBytes());
+            DrbgMetrics.instantiated();
+            if (event.shouldCommit()) {
+                event.mechanism = mMechanism.getDescription();
+                event.commit();
+            }
+            lastReseedNanos = System.nanoTime();
+        }
+        return longLivedDrbg;
+    }
+
+    private byte[] getChunkBuffer() {
+        if (chunkBuffer == null) {
+            chunkBuffer = new byte[MAX_BYTES_PER_REQUEST];
+        }
+        return chunkBuffer;
+    }
+
+    /**
+     * Bouncy Castle sizes each request by the array length, so partial requests go through a buffer of their exact
+     * length. The last {@value #TAIL_BUFFERS} lengths are kept, the oldest replaced first; callers whose partial
+     * lengths vary more than that, as a {@link BatchingRandomService} does with its batches, still allocate one
+     * buffer per call.
+     */
+    private byte[] getTailBuffer(int length) {
+        for (byte[] tailBuffer : tailBuffers) {
+            if (tailBuffer != null && tailBuffer.length == length) {
+                return tailBuffer;
+            }
+        }
+        byte[] tailBuffer = new byte[length];
+        tailBuffers[nextTailBuffer] = tailBuffer;
+        nextTailBuffer = (nextTailBuffer + 1) % TAIL_BUFFERS;
+        return tailBuffer;
+    }
+
+    /**
+     * {@link SecureRandom} output behind the continuous health tests, which throw on failure. It is already
+     * conditioned, so full entropy is assessed per byte.
+     */
+    static EntropySourceProvider getEntropySourceProvider() {
+        return HealthTestedEntropySource.provider(new SecureRandom(), 8);
+    }
+
+    /**
+     * Lets a reseed use entropy read before the generator's lock was taken.
+     */
+    private static final class PrefetchingEntropySource implements EntropySource {
+        private final EntropySource source;
+        /**
+         * guarded by the generator's lock, under which Bouncy Castle asks for entropy
+         */
+        private byte[] supplied;
+
+        PrefetchingEntropySource(EntropySource source) {
+            this.source = source;
+        }
+
+        byte[] read() {
+            return source.getEntropy();
+        }
+
+        /**
+         * @param entropy returned once, by the next {@link #getEntropy()}
+         */
+        void supply(byte[] entropy) {
+            supplied = entropy;
+        }
+
+        @Override
+        public boolean isPredictionResistant() {
+            return source.isPredictionResistant();
+        }
+
+        @Override
+        public byte[] getEntropy() {
+            byte[] entropy = supplied;
+            if (entropy == null) {
+                return source.getEntropy();
+            }
+            supplied = null;
+            return entropy;
+        }
+
+        @Override
+        public int entropySize() {
+            return source.entropySize();
+        }
+    }
+}
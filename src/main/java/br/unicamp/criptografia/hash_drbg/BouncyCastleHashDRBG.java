@@ -1,75 +1,47 @@
 package br.unicamp.criptografia.hash_drbg;
 
-import org.bouncycastle.crypto.digests.SHA256Digest;
-import org.bouncycastle.crypto.prng.EntropySource;
 import org.bouncycastle.crypto.prng.EntropySourceProvider;
-import org.bouncycastle.crypto.prng.drbg.HashSP800DRBG;
 
-import java.security.SecureRandom;
-
-public class BouncyCastleHashDRBG {
-    private static final int SECURITY_STRENGTH_BITS = 256;
-    private static final int SECURITY_STRENGTH_BYTES = SECURITY_STRENGTH_BITS / 8;
-    private final String mNonce;
-    private final String mPersonalizationString;
-    private HashSP800DRBG drbg;
+/**
+ * Hash_DRBG (SP 800-90A) over SHA-256, the {@link DrbgMechanism#HASH_SHA256} {@link BouncyCastleDRBG}.
+ */
+public class BouncyCastleHashDRBG extends BouncyCastleDRBG {
 
+    /**
+     * Reseeds {@link ReseedPolicy#whenExhausted() when exhausted}.
+     */
     public BouncyCastleHashDRBG(String nonce, String personalizationString) {
-        mNonce = nonce;
-        mPersonalizationString = personalizationString;
+        this(nonce, personalizationString, ReseedPolicy.whenExhausted());
     }
 
-    public byte[] generate() {
-        EntropySourceProvider entropySourceProvider = getEntropySourceProvider();
-
-        SHA256Digest digest = new SHA256Digest();
-        byte[] nonce = mNonce.getBytes();
-        byte[] personalizationString = mPersonalizationString.getBytes();
-
-        drbg = new HashSP800DRBG(
-                digest,
-                SECURITY_STRENGTH_BITS,
-                entropySourceProvider.get(SECURITY_STRENGTH_BITS),
-                nonce,
-                personalizationString
-        );
-
-        byte[] randomBytes = new byte[BouncyCastleHashDRBG.SECURITY_STRENGTH_BYTES];
-        boolean predictionResistant = true;
-        int numberOfGeneratedBits = drbg.generate(randomBytes, null, predictionResistant);
-
-        while (numberOfGeneratedBits == -1) {
-            System.out.println("Erro na geração de bytes aleatórios, precisa de um reseed");
-            numberOfGeneratedBits = drbg.generate(randomBytes, null, predictionResistant);
-        }
-
-        return randomBytes;
+    /**
+     * @param predictionResistant whether to reseed {@link ReseedPolicy#everyRequest() every request} rather than
+     *                            {@link ReseedPolicy#whenExhausted() when exhausted}
+     */
+    public BouncyCastleHashDRBG(String nonce, String personalizationString, boolean predictionResistant) {
+        this(nonce, personalizationString, predictionResistant, getEntropySourceProvider());
     }
 
-    public int getBlockSize() {
-        return drbg.getBlockSize();
+    /**
+     * @param entropySourceProvider asked for sources of 256 bits, for instance a {@link BufferedEntropySource}
+     */
+    public BouncyCastleHashDRBG(String nonce, String personalizationString, boolean predictionResistant,
+                                EntropySourceProvider entropySourceProvider) {
+        this(nonce, personalizationString,
+                predictionResistant ? ReseedPolicy.everyRequest() : ReseedPolicy.whenExhausted(),
+                entropySourceProvider);
     }
 
-    private static EntropySourceProvider getEntropySourceProvider() {
-        SecureRandom secureRandom = new SecureRandom();
-        return bitsRequired -> new EntropySource() {
-            @Override
-            public boolean isPredictionResistant() {
-                return true;
-            }
-
-            @Override
-            public byte[] getEntropy() {
-                // ???
-                byte[] entropy = new byte[(bitsRequired + 7) / 8];
-                secureRandom.nextBytes(entropy);
-                return entropy;
-            }
+    public BouncyCastleHashDRBG(String nonce, String personalizationString, ReseedPolicy reseedPolicy) {
+        this(nonce, personalizationString, reseedPolicy, getEntropySourceProvider());
+    }
 
-            @Override
-            public int entropySize() {
-                return bitsRequired;
-            }
-        };
+    /**
+     * @param entropySourceProvider asked for sources of 256 bits, for instance a {@link BufferedEntropySource}; a
+     *                              source may be read by a background reseed and a request at the same time
+     */
+    public BouncyCastleHashDRBG(String nonce, String personalizationString, ReseedPolicy reseedPolicy,
+                                EntropySourceProvider entropySourceProvider) {
+        super(DrbgMechanism.HASH_SHA256, nonce, personalizationString, reseedPolicy, entropySourceProvider);
     }
 }
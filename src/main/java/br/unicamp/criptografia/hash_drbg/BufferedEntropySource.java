@@ -0,0 +1,267 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.prng.EntropySource;
+import org.bouncycastle.crypto.prng.EntropySourceProvider;
+
+import java.security.InvalidParameterException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Entropy source that hands out seeds from a ring buffer kept full by a background thread, so a DRBG reseed only
+ * waits on the raw source when the buffer has run dry.
+ * <p>
+ * The buffer holds {@code capacity} seeds. When a seed is taken and {@code lowWaterMark} or fewer are left, the
+ * refill thread wakes up and fills it to capacity again. Each seed is conditioned by SHA-256 over twice its length
+ * of raw input, and is handed out once.
+ * <p>
+ * It is also the {@link EntropySourceProvider} of itself, for seeds of exactly {@link #entropySize()} bits, so any
+ * number of generators may take seeds from it. Consumers and the refill thread share one lock, held for a seed copy;
+ * concurrent reseeds contend on it, which is cheap next to the reseed itself. Call {@link #close()} to stop the refill
+ * thread.
+ */
+public final class BufferedEntropySource implements EntropySource, EntropySourceProvider, AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 64;
+    public static final int DEFAULT_LOW_WATER_MARK = 16;
+    private final int entropyBits;
+    private final int seedBytes;
+    private final int capacity;
+    private final int lowWaterMark;
+    private final SecureRandom rawSource;
+    private final SHA256Digest digest = new SHA256Digest();
+    private final byte[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition belowLowWater = lock.newCondition();
+    private final Thread refillThread;
+    private int head;
+    private int available;
+    private boolean closed;
+    private long served;
+    private long waits;
+    private long waitNanos;
+    private long refills;
+
+    public BufferedEntropySource(int entropyBits) {
+        this(entropyBits, DEFAULT_CAPACITY, DEFAULT_LOW_WATER_MARK, new SecureRandom());
+    }
+
+    /**
+     * @param capacity     seeds held when the buffer is full
+     * @param lowWaterMark seeds left at which a refill starts, below {@code capacity}
+     * @param rawSource    input to the conditioning, read only by the refill thread
+     */
+    public BufferedEntropySource(int entropyBits, int capacity, int lowWaterMark, SecureRandom rawSource) {
+        if (entropyBits <= 0 || entropyBits % 8 != 0) {
+            throw new InvalidParameterException("entropyBits must be a positive multiple of 8: " + entropyBits);
+        }
+        if (capacity <= 0 || lowWaterMark < 0 || lowWaterMark >= capacity) {
+            throw new InvalidParameterException("Expected 0 <= lowWaterMark < capacity, got " + lowWaterMark
+                    + " and " + capacity);
+        }
+        this.entropyBits = entropyBits;
+        this.seedBytes = entropyBits / 8;
+        this.capacity = capacity;
+        this.lowWaterMark = lowWaterMark;
+        this.rawSource = rawSource;
+        this.ring = new byte[capacity * seedBytes];
+        // last, with every field set; the class is final, so no subclass constructor runs after the thread starts
+        refillThread = Thread.ofPlatform().daemon().name("entropy-refill").start(this::refillLoop);
+    }
+
+    @Override
+    public EntropySource get(int bitsRequired) {
+        if (bitsRequired != entropyBits) {
+            throw new InvalidParameterException("This source provides " + entropyBits + "-bit seeds, not "
+                    + bitsRequired);
+        }
+        return this;
+    }
+
+    /**
+     * Seeds are never reused, so each one is fresh entropy for the reseed that takes it.
+     */
+    @Override
+    public boolean isPredictionResistant() {
+        return true;
+    }
+
+    /**
+     * @return the oldest buffered seed, waiting for the refill thread only if none is left
+     * @throws IllegalStateException if the source is closed
+     */
+    @Override
+    public byte[] getEntropy() {
+        byte[] seed = new byte[seedBytes];
+        lock.lock();
+        try {
+            if (available == 0 && !closed) {
+                waits++;
+                long start = System.nanoTime();
+                belowLowWater.signal();
+                while (available == 0 && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                waitNanos += System.nanoTime() - start;
+            }
+            if (closed) {
+                throw new IllegalStateException("Entropy source is closed");
+            }
+            System.arraycopy(ring, head * seedBytes, seed, 0, seedBytes);
+            head = (head + 1) % capacity;
+            available--;
+            served++;
+            if (available <= lowWaterMark) {
+                belowLowWater.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return seed;
+    }
+
+    @Override
+    public int entropySize() {
+        return entropyBits;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getLowWaterMark() {
+        return lowWaterMark;
+    }
+
+    /**
+     * @return seeds ready to be handed out
+     */
+    public int available() {
+        lock.lock();
+        try {
+            return available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return seeds handed out so far
+     */
+    public long getServed() {
+        lock.lock();
+        try {
+            return served;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return calls to {@link #getEntropy()} that found the buffer empty and had to wait
+     */
+    public long getWaits() {
+        lock.lock();
+        try {
+            return waits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return total time spent in those waits
+     */
+    public long getWaitTime(TimeUnit unit) {
+        lock.lock();
+        try {
+            return unit.convert(waitNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return times the refill thread started filling the buffer
+     */
+    public long getRefills() {
+        lock.lock();
+        try {
+            return refills;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            belowLowWater.signal();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        refillThread.interrupt();
+    }
+
+    private void refillLoop() {
+        byte[] raw = new byte[2 * seedBytes];
+        byte[] seed = new byte[seedBytes];
+        while (true) {
+            lock.lock();
+            try {
+                while (!closed && available > lowWaterMark && available > 0) {
+                    belowLowWater.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+                refills++;
+            } finally {
+                lock.unlock();
+            }
+
+            boolean full = false;
+            while (!full) {
+                // the raw source and the digest are used outside the lock, consumers only wait for the copy
+                rawSource.nextBytes(raw);
+                condition(raw, seed);
+                lock.lock();
+                try {
+                    if (closed) {
+                        return;
+                    }
+                    int tail = (head + available) % capacity;
+                    System.arraycopy(seed, 0, ring, tail * seedBytes, seedBytes);
+                    available++;
+                    full = available == capacity;
+                    notEmpty.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills {@code seed} with SHA-256(counter || raw) for counter = 1, 2, ..., truncated to its length.
+     */
+    private void condition(byte[] raw, byte[] seed) {
+        byte[] block = new byte[digest.getDigestSize()];
+        int counter = 1;
+        for (int offset = 0; offset < seed.length; offset += block.length, counter++) {
+            digest.update((byte) (counter >>> 24));
+            digest.update((byte) (counter >>> 16));
+            digest.update((byte) (counter >>> 8));
+            digest.update((byte) counter);
+            digest.update(raw, 0, raw.length);
+            digest.doFinal(block, 0);
+            System.arraycopy(block, 0, seed, offset, Math.min(block.length, seed.length - offset));
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streams generator output to a channel in chunks of direct buffers, optionally feeding a
+ * {@link StreamingSp80022Suite} with it on the way.
+ * <p>
+ * With several generators, chunk i comes from generator {@code i mod k}, each on its own thread with two chunks in
+ * flight, and the chunks are written in order; the output is the same as a single thread taking turns would give.
+ * Formatting happens on the generator threads, so the writing thread only writes and tests.
+ */
+public class BulkGenerator {
+    public static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+    private static final int CHUNKS_PER_GENERATOR = 2;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+    private static final short[] HEX = new short[256];
+    private static final long[] BITS = new long[256];
+    private final List<Drbg> generators;
+    private final Format format;
+    private final int chunkBytes;
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            HEX[b] = (short) (HEX_DIGITS[b >>> 4] << 8 | HEX_DIGITS[b & 0xf]);
+            long characters = 0;
+            for (int bit = 7; bit >= 0; bit--) {
+                characters = characters << 8 | ('0' + (b >>> bit & 1));
+            }
+            BITS[b] = characters;
+        }
+    }
+
+    public enum Format {
+        /**
+         * the generated bytes
+         */
+        RAW(1),
+        /**
+         * two lowercase hexadecimal digits per byte, then a line break at the end
+         */
+        HEX(2),
+        /**
+         * eight '0' or '1' characters per byte, most significant bit first, as read by
+         * {@link BitSequenceFiles#loadAscii}, then a line break at the end
+         */
+        BITS(8);
+
+        private final int charactersPerByte;
+
+        Format(int charactersPerByte) {
+            this.charactersPerByte = charactersPerByte;
+        }
+    }
+
+    public BulkGenerator(Drbg generator, Format format) {
+        this(List.of(generator), format, DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * @param generators independently seeded generators, one thread each
+     * @param chunkBytes generated bytes per chunk
+     */
+    public BulkGenerator(List<? extends Drbg> generators, Format format, int chunkBytes) {
+        if (generators.isEmpty() || chunkBytes <= 0 || chunkBytes > Integer.MAX_VALUE / format.charactersPerByte) {
+            throw new InvalidParameterException("Invalid bulk generation: " + generators.size() + " generators, "
+                    + chunkBytes + " bytes per chunk");
+        }
+        this.generators = List.copyOf(generators);
+        this.format = format;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Writes {@code bytes} generated bytes, in the format, to {@code output}, which is left open.
+     *
+     * @param suite fed with the generated bytes, may be null
+     */
+    public void write(long bytes, WritableByteChannel output, StreamingSp80022Suite suite) throws IOException {
+        if (bytes < 0) {
+            throw new InvalidParameterException("Invalid length: " + bytes);
+        }
+        long chunks = (bytes + chunkBytes - 1) / chunkBytes;
+        if (generators.size() == 1 || chunks <= 1) {
+            Chunk chunk = new Chunk((int) Math.min(chunkBytes, bytes));
+            for (long i = 0; i < chunks; i++) {
+                chunk.fill(generators.get(0), chunkLength(i, bytes));
+                chunk.writeTo(output, suite);
+            }
+        } else {
+            writeInParallel(bytes, chunks, output, suite);
+        }
+        if (format != Format.RAW) {
+            writeFully(output, ByteBuffer.wrap(new byte[]{'\n'}));
+        }
+    }
+
+    private void writeInParallel(long bytes, long chunks, WritableByteChannel output, StreamingSp80022Suite suite)
+            throws IOException {
+        int k = generators.size();
+        List<BlockingQueue<Chunk>> free = new ArrayList<>(k);
+        List<BlockingQueue<Chunk>> filled = new ArrayList<>(k);
+        List<Thread> threads = new ArrayList<>(k);
+        for (int g = 0; g < k; g++) {
+            BlockingQueue<Chunk> generatorFree = new ArrayBlockingQueue<>(CHUNKS_PER_GENERATOR);
+            BlockingQueue<Chunk> generatorFilled = new ArrayBlockingQueue<>(CHUNKS_PER_GENERATOR + 1);
+            for (int c = 0; c < CHUNKS_PER_GENERATOR; c++) {
+                generatorFree.add(new Chunk(chunkBytes));
+            }
+            free.add(generatorFree);
+            filled.add(generatorFilled);
+            Drbg generator = generators.get(g);
+            int first = g;
+            threads.add(Thread.ofPlatform().name("bulk-generator-" + g).start(() -> {
+                try {
+                    for (long i = first; i < chunks; i += k) {
+                        Chunk chunk = generatorFree.take();
+                        chunk.fill(generator, chunkLength(i, bytes));
+                        generatorFilled.put(chunk);
+                    }
+                } catch (InterruptedException e) {
+                    // the writer stopped
+                } catch (RuntimeException | Error e) {
+                    generatorFilled.add(new Chunk(e));
+                }
+            }));
+        }
+
+        try {
+            for (long i = 0; i < chunks; i++) {
+                int g = (int) (i % k);
+                Chunk chunk = filled.get(g).take();
+                if (chunk.failure != null) {
+                    throw new IOException("Generator " + g + " failed", chunk.failure);
+                }
+                chunk.writeTo(output, suite);
+                free.get(g).put(chunk);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing chunks");
+        } finally {
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    private int chunkLength(long index, long bytes) {
+        return (int) Math.min(chunkBytes, bytes - index * chunkBytes);
+    }
+
+    private static void writeFully(WritableByteChannel output, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+    }
+
+    private final class Chunk {
+        private final ByteBuffer raw;
+        private final ByteBuffer formatted;
+        private final Throwable failure;
+
+        Chunk(int capacity) {
+            raw = ByteBuffer.allocateDirect(capacity);
+            formatted = format == Format.RAW ? raw : ByteBuffer.allocateDirect(capacity * format.charactersPerByte);
+            failure = null;
+        }
+
+        /**
+         * In place of the next chunk of a generator that failed.
+         */
+        Chunk(Throwable failure) {
+            raw = null;
+            formatted = null;
+            this.failure = failure;
+        }
+
+        void fill(Drbg generator, int length) {
+            raw.clear().limit(length);
+            generator.generate(raw);
+            raw.flip();
+            if (format == Format.RAW) {
+                return;
+            }
+            formatted.clear();
+            for (int i = 0; i < length; i++) {
+                int b = raw.get(i) & 0xff;
+                if (format == Format.HEX) {
+                    formatted.putShort(HEX[b]);
+                } else {
+                    formatted.putLong(BITS[b]);
+                }
+            }
+            formatted.flip();
+        }
+
+        void writeTo(WritableByteChannel output, StreamingSp80022Suite suite) throws IOException {
+            // before the write, which consumes raw when it is also the formatted buffer
+            if (suite != null) {
+                suite.update(raw);
+            }
+            writeFully(output, formatted);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.util.List;
+
+/**
+ * Streaming 2.13 Cumulative Sums (Cusum) Test, forward and reverse, on its own. {@link RandomWalk} reports it together
+ * with the random excursions tests from the same walk.
+ */
+public class CumulativeSumsAccumulator implements StreamingSp80022Test {
+    static final String NAME = RandomWalk.CUMULATIVE_SUMS;
+    private final RandomWalk walk = new RandomWalk();
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void update(long word, int bits) {
+        walk.update(word, bits);
+    }
+
+    @Override
+    public List<TestResult> finish(double significanceLevel) {
+        return walk.cumulativeSums(significanceLevel);
+    }
+}
@@ -0,0 +1,64 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Erf;
+
+import java.security.InvalidParameterException;
+import java.util.List;
+
+/**
+ * 2.6 Discrete Fourier Transform (Spectral) Test.
+ */
+public class DiscreteFourierTransformTest implements Sp80022Test {
+    static final String NAME = "FFT";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<TestResult> run(BitSequence sequence, double significanceLevel) {
+        long length = sequence.length();
+        if (length < 2 || length > Integer.MAX_VALUE - 8) {
+            throw new InvalidParameterException("The spectral test needs between 2 and 2^31 - 9 bits, got " + length);
+        }
+        int n = (int) length;
+
+        // 2.6.4 (1), into a per-thread array that may be longer than n
+        double[] data = FftScratch.get(FftScratch.INPUT, n);
+        for (int i = 0; i < sequence.wordCount(); i++) {
+            long word = sequence.word(i);
+            int bits = Math.min(Long.SIZE, n - Long.SIZE * i);
+            for (int j = 0; j < bits; j++) {
+                data[Long.SIZE * i + j] = (word << j) < 0 ? 1 : -1;
+            }
+        }
+
+        // 2.6.4 (2) and (3)
+        RealFft.forLength(n).transform(data);
+
+        // 2.6.4 (4) and (6): comparing squared moduli against T^2 = ln(1 / 0.05) n
+        double thresholdSquared = Math.log(1 / 0.05) * n;
+        long peaksBelowThreshold = 0;
+        for (int k = 0; k < n / 2; k++) {
+            double re = data[2 * k];
+            double im = data[2 * k + 1];
+            if (re * re + im * im < thresholdSquared) {
+                peaksBelowThreshold++;
+            }
+        }
+        return List.of(evaluate(peaksBelowThreshold, n, significanceLevel));
+    }
+
+    static TestResult evaluate(long peaksBelowThreshold, long length, double significanceLevel) {
+        // 2.6.4 (5)
+        double expectedPeaks = 0.95 * length / 2;
+
+        // 2.6.4 (7)
+        double d = (peaksBelowThreshold - expectedPeaks) / Math.sqrt(length * 0.95 * 0.05 / 4);
+
+        // 2.6.4 (8)
+        double pValue = Erf.erfc(Math.abs(d) / Math.sqrt(2));
+        return TestResult.of(NAME, d, pValue, significanceLevel);
+    }
+}
@@ -0,0 +1,33 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An SP 800-90A deterministic random bit generator, whatever its {@link DrbgMechanism}.
+ */
+public interface Drbg {
+
+    /**
+     * @return as many bytes as the security strength, one request
+     */
+    byte[] generate();
+
+    /**
+     * Fills {@code output[offset, offset + length)}.
+     */
+    void generate(byte[] output, int offset, int length);
+
+    /**
+     * Fills the remaining bytes of {@code output} and advances its position to the limit.
+     */
+    void generate(ByteBuffer output);
+
+    /**
+     * Reseeds from the entropy source now.
+     *
+     * @param additionalInput optional input mixed into the new seed, may be null
+     */
+    void reseed(byte[] additionalInput);
+
+    DrbgMechanism getMechanism();
+}
@@ -0,0 +1,99 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.List;
+
+/**
+ * JDK Flight Recorder events of the generator and the test suites, in the "Hash DRBG" category. They are disabled
+ * unless a recording enables them, e.g. {@code jfr configure +br.unicamp.criptografia.hash_drbg.Generate#enabled=true};
+ * a disabled event costs a check of its enabled flag, its allocation being eliminated by the JIT.
+ */
+final class DrbgEvents {
+    private static final String PREFIX = "br.unicamp.criptografia.hash_drbg.";
+
+    private DrbgEvents() {
+    }
+
+    @Name(PREFIX + "Instantiate")
+    @Label("DRBG Instantiate")
+    @Description("Instantiation of a DRBG, entropy input included")
+    @Category("Hash DRBG")
+    @StackTrace(false)
+    static final class Instantiate extends Event {
+        @Label("Mechanism")
+        @Description("The SP 800-90A mechanism and its primitive, e.g. Hash_DRBG SHA-256")
+        String mechanism;
+    }
+
+    @Name(PREFIX + "Generate")
+    @Label("DRBG Generate")
+    @Description("One generate call, split into as many DRBG requests as it needs")
+    @Category("Hash DRBG")
+    @StackTrace(false)
+    static final class Generate extends Event {
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name(PREFIX + "Reseed")
+    @Label("DRBG Reseed")
+    @Description("Reseed of a DRBG, entropy input included unless it was read in the background; that of a"
+            + " prediction resistant request includes its generation")
+    @Category("Hash DRBG")
+    @StackTrace(false)
+    static final class Reseed extends Event {
+        @Label("Cause")
+        @Description("policy, background, exhausted, prediction-resistance or explicit")
+        String cause;
+    }
+
+    @Name(PREFIX + "TestRun")
+    @Label("SP 800-22 Test Run")
+    @Description("One SP 800-22 test over a sequence, or the final computation of a streamed one")
+    @Category("Hash DRBG")
+    @StackTrace(false)
+    static final class TestRun extends Event {
+        @Label("Test")
+        String test;
+
+        @Label("Sequence Length")
+        @Description("Bits tested")
+        long sequenceLength;
+
+        @Label("P-value")
+        @Description("The smallest P-value the test reported")
+        double pValue;
+
+        @Label("Results")
+        int results;
+
+        @Label("Passed")
+        boolean passed;
+
+        void commit(String name, long length, List<TestResult> testResults) {
+            if (!shouldCommit()) {
+                return;
+            }
+            test = name;
+            sequenceLength = length;
+            pValue = Double.NaN;
+            passed = true;
+            for (TestResult result : testResults) {
+                if (!(result.pValue() >= pValue)) {
+                    pValue = result.pValue();
+                }
+                passed &= result.passed();
+            }
+            results = testResults.size();
+            commit();
+        }
+    }
+}
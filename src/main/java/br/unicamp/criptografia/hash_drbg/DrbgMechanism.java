@@ -0,0 +1,74 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.prng.EntropySource;
+import org.bouncycastle.crypto.prng.drbg.CTRSP800DRBG;
+import org.bouncycastle.crypto.prng.drbg.HMacSP800DRBG;
+import org.bouncycastle.crypto.prng.drbg.HashSP800DRBG;
+import org.bouncycastle.crypto.prng.drbg.SP80090DRBG;
+
+/**
+ * The SP 800-90A mechanisms a {@link BouncyCastleDRBG} can run, all at a security strength of 256 bits.
+ * <p>
+ * The mechanisms are Bouncy Castle's; the digests and the block cipher are the JDK's, through {@link JcaDigest} and
+ * {@link JcaBlockCipher}, for its SHA and AES intrinsics. The output is the same as with Bouncy Castle's own
+ * primitives. All of them reseed after 2^47 requests of at most 2^18 bits.
+ */
+public enum DrbgMechanism {
+    HASH_SHA256("Hash_DRBG SHA-256") {
+        @Override
+        SP80090DRBG instantiate(EntropySource entropySource, byte[] nonce, byte[] personalizationString) {
+            return new HashSP800DRBG(JcaDigest.sha256(), BouncyCastleDRBG.SECURITY_STRENGTH_BITS, entropySource,
+                    personalizationString, nonce);
+        }
+    },
+    HASH_SHA512("Hash_DRBG SHA-512") {
+        @Override
+        SP80090DRBG instantiate(EntropySource entropySource, byte[] nonce, byte[] personalizationString) {
+            return new HashSP800DRBG(JcaDigest.sha512(), BouncyCastleDRBG.SECURITY_STRENGTH_BITS, entropySource,
+                    personalizationString, nonce);
+        }
+    },
+    HMAC_SHA256("HMAC_DRBG SHA-256") {
+        @Override
+        SP80090DRBG instantiate(EntropySource entropySource, byte[] nonce, byte[] personalizationString) {
+            return new HMacSP800DRBG(new HMac(JcaDigest.sha256()), BouncyCastleDRBG.SECURITY_STRENGTH_BITS,
+                    entropySource, personalizationString, nonce);
+        }
+    },
+    HMAC_SHA512("HMAC_DRBG SHA-512") {
+        @Override
+        SP80090DRBG instantiate(EntropySource entropySource, byte[] nonce, byte[] personalizationString) {
+            return new HMacSP800DRBG(new HMac(JcaDigest.sha512()), BouncyCastleDRBG.SECURITY_STRENGTH_BITS,
+                    entropySource, personalizationString, nonce);
+        }
+    },
+    /**
+     * CTR_DRBG with the derivation function, so the entropy input need not be full entropy
+     */
+    CTR_AES256("CTR_DRBG AES-256") {
+        @Override
+        SP80090DRBG instantiate(EntropySource entropySource, byte[] nonce, byte[] personalizationString) {
+            return new CTRSP800DRBG(new JcaBlockCipher(), 256, BouncyCastleDRBG.SECURITY_STRENGTH_BITS,
+                    entropySource, personalizationString, nonce);
+        }
+    };
+
+    private final String description;
+
+    DrbgMechanism(String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return the mechanism and its primitive as SP 800-90A names them, e.g. Hash_DRBG SHA-256
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Instantiates the mechanism, reading the entropy input from {@code entropySource}.
+     */
+    abstract SP80090DRBG instantiate(EntropySource entropySource, byte[] nonce, byte[] personalizationString);
+}
@@ -0,0 +1,157 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative counters over every generator and test suite in the JVM, exposed as the MBean
+ * {@value #OBJECT_NAME}.
+ * <p>
+ * Counting starts with {@link #register()}; until then the instrumented paths only read a volatile flag, and skip the
+ * clock reads a latency needs. Counters are {@link LongAdder}s, so concurrent generators do not contend on them.
+ */
+public final class DrbgMetrics implements DrbgMetricsMBean {
+    public static final String OBJECT_NAME = "br.unicamp.criptografia.hash_drbg:type=DrbgMetrics";
+    private static final DrbgMetrics INSTANCE = new DrbgMetrics();
+    private static volatile boolean enabled;
+    private final LongAdder instantiations = new LongAdder();
+    private final LongAdder generateCalls = new LongAdder();
+    private final LongAdder bytesGenerated = new LongAdder();
+    private final LongAdder generateNanos = new LongAdder();
+    private final LongAdder reseeds = new LongAdder();
+    private final LongAdder testRuns = new LongAdder();
+    private final LongAdder bitsTested = new LongAdder();
+    private final LongAdder testNanos = new LongAdder();
+
+    private DrbgMetrics() {
+    }
+
+    public static DrbgMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts counting and registers the MBean with the platform MBean server, once.
+     */
+    public static synchronized DrbgMetrics register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered by an earlier call
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+        }
+        enabled = true;
+        return INSTANCE;
+    }
+
+    /**
+     * Starts counting without JMX.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the start of an operation to pass to the counters, 0 when counting is off
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    static void instantiated() {
+        if (enabled) {
+            INSTANCE.instantiations.increment();
+        }
+    }
+
+    static void generated(long bytes, long start) {
+        if (enabled && start != 0) {
+            INSTANCE.generateNanos.add(System.nanoTime() - start);
+            INSTANCE.generateCalls.increment();
+            INSTANCE.bytesGenerated.add(bytes);
+        }
+    }
+
+    static void reseeded() {
+        if (enabled) {
+            INSTANCE.reseeds.increment();
+        }
+    }
+
+    static void tested(long bits, long start) {
+        if (enabled && start != 0) {
+            INSTANCE.testNanos.add(System.nanoTime() - start);
+            INSTANCE.testRuns.increment();
+            INSTANCE.bitsTested.add(bits);
+        }
+    }
+
+    @Override
+    public long getInstantiations() {
+        return instantiations.sum();
+    }
+
+    @Override
+    public long getGenerateCalls() {
+        return generateCalls.sum();
+    }
+
+    @Override
+    public long getBytesGenerated() {
+        return bytesGenerated.sum();
+    }
+
+    @Override
+    public long getGenerateTimeNanos() {
+        return generateNanos.sum();
+    }
+
+    @Override
+    public double getGenerateThroughput() {
+        long nanos = getGenerateTimeNanos();
+        return nanos == 0 ? 0 : getBytesGenerated() * 1e9 / nanos;
+    }
+
+    @Override
+    public long getReseeds() {
+        return reseeds.sum();
+    }
+
+    @Override
+    public long getTestRuns() {
+        return testRuns.sum();
+    }
+
+    @Override
+    public long getBitsTested() {
+        return bitsTested.sum();
+    }
+
+    @Override
+    public long getTestTimeNanos() {
+        return testNanos.sum();
+    }
+
+    @Override
+    public void reset() {
+        instantiations.reset();
+        generateCalls.reset();
+        bytesGenerated.reset();
+        generateNanos.reset();
+        reseeds.reset();
+        testRuns.reset();
+        bitsTested.reset();
+        testNanos.reset();
+    }
+}
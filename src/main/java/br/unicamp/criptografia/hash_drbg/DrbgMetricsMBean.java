@@ -0,0 +1,33 @@
+package br.unicamp.criptografia.hash_drbg;
+
+/**
+ * Management interface of {@link DrbgMetrics}.
+ */
+public interface DrbgMetricsMBean {
+
+    long getInstantiations();
+
+    long getGenerateCalls();
+
+    long getBytesGenerated();
+
+    long getGenerateTimeNanos();
+
+    /**
+     * @return bytes generated per second spent in generate calls
+     */
+    double getGenerateThroughput();
+
+    /**
+     * @return reseeds, counting every request of a {@link ReseedPolicy#everyRequest() prediction resistant} generator
+     */
+    long getReseeds();
+
+    long getTestRuns();
+
+    long getBitsTested();
+
+    long getTestTimeNanos();
+
+    void reset();
+}
@@ -0,0 +1,17 @@
+package br.unicamp.criptografia.hash_drbg;
+
+/**
+ * Thrown when entropy input fails a {@link HealthTests health test}; the entropy is not handed out.
+ */
+public class EntropyHealthException extends IllegalStateException {
+    private final HealthTests.Failure failure;
+
+    public EntropyHealthException(HealthTests.Failure failure) {
+        super(failure.toString());
+        this.failure = failure;
+    }
+
+    public HealthTests.Failure getFailure() {
+        return failure;
+    }
+}
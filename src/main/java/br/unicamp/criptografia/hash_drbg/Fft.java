@@ -0,0 +1,474 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.util.Arrays;
+
+/**
+ * In-place forward DFT of complex values interleaved in a {@code double[]}: element {@code k} is
+ * {@code data[2k] + i data[2k + 1]}.
+ * <p>
+ * Lengths whose prime factors are all at most {@link #MAX_RADIX} run as a mixed-radix Stockham FFT, ping-ponging
+ * with a per-thread {@link FftScratch} array; radices 2 to 5 have their own butterflies. Other lengths go through
+ * Bluestein's algorithm on a power-of-two FFT. A plan holds only immutable tables, shared by threads; the last
+ * {@value #CACHED_PLANS} lengths used are cached.
+ */
+final class Fft {
+    static final int MAX_RADIX = 32;
+    /**
+     * A Bluestein plan holds about 4n doubles, so a few are kept, enough for the lengths of one battery run
+     */
+    private static final int CACHED_PLANS = 8;
+    private static final PlanCache<Fft> PLANS = new PlanCache<>(CACHED_PLANS, Fft::new);
+    private final int length;
+    private final int[] radices;
+    private final Twiddles twiddles;
+    /**
+     * per stage, exp(-2 pi i k / radix) for the generic butterfly, null for the radices up to 5
+     */
+    private final double[][] roots;
+    private final Bluestein bluestein;
+    private final int scratchLength;
+
+    private Fft(int length) {
+        this.length = length;
+        int[] factors = factor(length);
+        if (factors.length > 0 && factors[factors.length - 1] > MAX_RADIX) {
+            radices = null;
+            twiddles = null;
+            roots = null;
+            bluestein = new Bluestein(length);
+            scratchLength = 0;
+            return;
+        }
+        radices = factors;
+        twiddles = new Twiddles(length);
+        roots = new double[radices.length][];
+        int largest = 4;
+        for (int i = 0; i < radices.length; i++) {
+            int radix = radices[i];
+            largest = Math.max(largest, radix);
+            if (radix > 5) {
+                roots[i] = new double[2 * radix];
+                for (int k = 0; k < radix; k++) {
+                    roots[i][2 * k] = Math.cos(2 * Math.PI * k / radix);
+                    roots[i][2 * k + 1] = -Math.sin(2 * Math.PI * k / radix);
+                }
+            }
+        }
+        bluestein = null;
+        // the generic butterfly keeps its inputs past the ping-pong buffer
+        scratchLength = 2 * length + 2 * largest;
+    }
+
+    static Fft forLength(int length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("FFT length must be positive: " + length);
+        }
+        return PLANS.get(length);
+    }
+
+    int length() {
+        return length;
+    }
+
+    /**
+     * Replaces {@code data[0, 2 * length)} by its DFT, X_k = sum_j x_j exp(-2 pi i j k / length).
+     */
+    void transform(double[] data) {
+        if (bluestein != null) {
+            bluestein.transform(data);
+            return;
+        }
+        double[] work = FftScratch.get(FftScratch.STOCKHAM, scratchLength);
+        double[] source = data;
+        double[] target = work;
+        int stride = 1;
+        int subLength = length;
+        for (int stage = 0; stage < radices.length; stage++) {
+            int radix = radices[stage];
+            int span = subLength / radix;
+            switch (radix) {
+                case 2 -> radix2(source, target, span, stride);
+                case 3 -> radix3(source, target, span, stride);
+                case 4 -> radix4(source, target, span, stride);
+                case 5 -> radix5(source, target, span, stride);
+                default -> generic(source, target, span, stride, radix, roots[stage], work);
+            }
+            double[] swap = source;
+            source = target;
+            target = swap;
+            stride *= radix;
+            subLength = span;
+        }
+        if (source != data) {
+            System.arraycopy(source, 0, data, 0, 2 * length);
+        }
+    }
+
+    /**
+     * Replaces {@code data[0, 2 * length)} by its unscaled inverse DFT.
+     */
+    void inverse(double[] data) {
+        for (int i = 1; i < 2 * length; i += 2) {
+            data[i] = -data[i];
+        }
+        transform(data);
+        for (int i = 1; i < 2 * length; i += 2) {
+            data[i] = -data[i];
+        }
+    }
+
+    /*
+     * One Stockham decimation-in-frequency stage over the sub-transforms of length n = span * radix, interleaved
+     * with the given stride: for each p < span and q < stride,
+     *   y[q + stride (radix p + u)] = w_n^(p u) sum_t x[q + stride (p + t span)] exp(-2 pi i t u / radix).
+     * w_n^p is exp(-2 pi i p stride / length).
+     */
+
+    private void radix2(double[] x, double[] y, int span, int stride) {
+        for (int p = 0; p < span; p++) {
+            long w = (long) p * stride;
+            double wr = twiddles.re(w);
+            double wi = twiddles.im(w);
+            int in = 2 * stride * p;
+            int inOffset = 2 * stride * span;
+            int out = 2 * stride * 2 * p;
+            for (int q = 0; q < 2 * stride; q += 2) {
+                double ar = x[in + q];
+                double ai = x[in + q + 1];
+                double br = x[in + inOffset + q];
+                double bi = x[in + inOffset + q + 1];
+                y[out + q] = ar + br;
+                y[out + q + 1] = ai + bi;
+                double dr = ar - br;
+                double di = ai - bi;
+                y[out + 2 * stride + q] = dr * wr - di * wi;
+                y[out + 2 * stride + q + 1] = dr * wi + di * wr;
+            }
+        }
+    }
+
+    private void radix4(double[] x, double[] y, int span, int stride) {
+        int inOffset = 2 * stride * span;
+        int outOffset = 2 * stride;
+        for (int p = 0; p < span; p++) {
+            long w = (long) p * stride;
+            double w1r = twiddles.re(w);
+            double w1i = twiddles.im(w);
+            double w2r = w1r * w1r - w1i * w1i;
+            double w2i = 2 * w1r * w1i;
+            double w3r = w2r * w1r - w2i * w1i;
+            double w3i = w2r * w1i + w2i * w1r;
+            int in = 2 * stride * p;
+            int out = 2 * stride * 4 * p;
+            for (int q = 0; q < 2 * stride; q += 2) {
+                double a0r = x[in + q];
+                double a0i = x[in + q + 1];
+                double a1r = x[in + inOffset + q];
+                double a1i = x[in + inOffset + q + 1];
+                double a2r = x[in + 2 * inOffset + q];
+                double a2i = x[in + 2 * inOffset + q + 1];
+                double a3r = x[in + 3 * inOffset + q];
+                double a3i = x[in + 3 * inOffset + q + 1];
+                double t0r = a0r + a2r;
+                double t0i = a0i + a2i;
+                double t1r = a0r - a2r;
+                double t1i = a0i - a2i;
+                double t2r = a1r + a3r;
+                double t2i = a1i + a3i;
+                // (a1 - a3) * -i
+                double t3r = a1i - a3i;
+                double t3i = a3r - a1r;
+
+                y[out + q] = t0r + t2r;
+                y[out + q + 1] = t0i + t2i;
+                double r = t1r + t3r;
+                double i = t1i + t3i;
+                y[out + outOffset + q] = r * w1r - i * w1i;
+                y[out + outOffset + q + 1] = r * w1i + i * w1r;
+                r = t0r - t2r;
+                i = t0i - t2i;
+                y[out + 2 * outOffset + q] = r * w2r - i * w2i;
+                y[out + 2 * outOffset + q + 1] = r * w2i + i * w2r;
+                r = t1r - t3r;
+                i = t1i - t3i;
+                y[out + 3 * outOffset + q] = r * w3r - i * w3i;
+                y[out + 3 * outOffset + q + 1] = r * w3i + i * w3r;
+            }
+        }
+    }
+
+    private void radix3(double[] x, double[] y, int span, int stride) {
+        double s = Math.sqrt(3) / 2;
+        int inOffset = 2 * stride * span;
+        int outOffset = 2 * stride;
+        for (int p = 0; p < span; p++) {
+            long w = (long) p * stride;
+            double w1r = twiddles.re(w);
+            double w1i = twiddles.im(w);
+            double w2r = w1r * w1r - w1i * w1i;
+            double w2i = 2 * w1r * w1i;
+            int in = 2 * stride * p;
+            int out = 2 * stride * 3 * p;
+            for (int q = 0; q < 2 * stride; q += 2) {
+                double a0r = x[in + q];
+                double a0i = x[in + q + 1];
+                double a1r = x[in + inOffset + q];
+                double a1i = x[in + inOffset + q + 1];
+                double a2r = x[in + 2 * inOffset + q];
+                double a2i = x[in + 2 * inOffset + q + 1];
+                double br = a1r + a2r;
+                double bi = a1i + a2i;
+                double tr = a0r - br / 2;
+                double ti = a0i - bi / 2;
+                // -i sqrt(3)/2 (a1 - a2)
+                double ur = s * (a1i - a2i);
+                double ui = -s * (a1r - a2r);
+
+                y[out + q] = a0r + br;
+                y[out + q + 1] = a0i + bi;
+                double r = tr + ur;
+                double i = ti + ui;
+                y[out + outOffset + q] = r * w1r - i * w1i;
+                y[out + outOffset + q + 1] = r * w1i + i * w1r;
+                r = tr - ur;
+                i = ti - ui;
+                y[out + 2 * outOffset + q] = r * w2r - i * w2i;
+                y[out + 2 * outOffset + q + 1] = r * w2i + i * w2r;
+            }
+        }
+    }
+
+    private void radix5(double[] x, double[] y, int span, int stride) {
+        double c1 = Math.cos(2 * Math.PI / 5);
+        double c2 = Math.cos(4 * Math.PI / 5);
+        double s1 = Math.sin(2 * Math.PI / 5);
+        double s2 = Math.sin(4 * Math.PI / 5);
+        int inOffset = 2 * stride * span;
+        int outOffset = 2 * stride;
+        for (int p = 0; p < span; p++) {
+            long w = (long) p * stride;
+            double w1r = twiddles.re(w);
+            double w1i = twiddles.im(w);
+            double w2r = w1r * w1r - w1i * w1i;
+            double w2i = 2 * w1r * w1i;
+            double w3r = w2r * w1r - w2i * w1i;
+            double w3i = w2r * w1i + w2i * w1r;
+            double w4r = w2r * w2r - w2i * w2i;
+            double w4i = 2 * w2r * w2i;
+            int in = 2 * stride * p;
+            int out = 2 * stride * 5 * p;
+            for (int q = 0; q < 2 * stride; q += 2) {
+                double a0r = x[in + q];
+                double a0i = x[in + q + 1];
+                double a1r = x[in + inOffset + q];
+                double a1i = x[in + inOffset + q + 1];
+                double a2r = x[in + 2 * inOffset + q];
+                double a2i = x[in + 2 * inOffset + q + 1];
+                double a3r = x[in + 3 * inOffset + q];
+                double a3i = x[in + 3 * inOffset + q + 1];
+                double a4r = x[in + 4 * inOffset + q];
+                double a4i = x[in + 4 * inOffset + q + 1];
+                double b1r = a1r + a4r;
+                double b1i = a1i + a4i;
+                double b2r = a2r + a3r;
+                double b2i = a2i + a3i;
+                double d1r = a1r - a4r;
+                double d1i = a1i - a4i;
+                double d2r = a2r - a3r;
+                double d2i = a2i - a3i;
+                double t1r = a0r + c1 * b1r + c2 * b2r;
+                double t1i = a0i + c1 * b1i + c2 * b2i;
+                double t2r = a0r + c2 * b1r + c1 * b2r;
+                double t2i = a0i + c2 * b1i + c1 * b2i;
+                double u1r = s1 * d1r + s2 * d2r;
+                double u1i = s1 * d1i + s2 * d2i;
+                double u2r = s2 * d1r - s1 * d2r;
+                double u2i = s2 * d1i - s1 * d2i;
+
+                y[out + q] = a0r + b1r + b2r;
+                y[out + q + 1] = a0i + b1i + b2i;
+                // y1 = t1 - i u1, y4 = t1 + i u1, y2 = t2 - i u2, y3 = t2 + i u2
+                double r = t1r + u1i;
+                double i = t1i - u1r;
+                y[out + outOffset + q] = r * w1r - i * w1i;
+                y[out + outOffset + q + 1] = r * w1i + i * w1r;
+                r = t2r + u2i;
+                i = t2i - u2r;
+                y[out + 2 * outOffset + q] = r * w2r - i * w2i;
+                y[out + 2 * outOffset + q + 1] = r * w2i + i * w2r;
+                r = t2r - u2i;
+                i = t2i + u2r;
+                y[out + 3 * outOffset + q] = r * w3r - i * w3i;
+                y[out + 3 * outOffset + q + 1] = r * w3i + i * w3r;
+                r = t1r - u1i;
+                i = t1i + u1r;
+                y[out + 4 * outOffset + q] = r * w4r - i * w4i;
+                y[out + 4 * outOffset + q + 1] = r * w4i + i * w4r;
+            }
+        }
+    }
+
+    private void generic(double[] x, double[] y, int span, int stride, int radix, double[] root, double[] work) {
+        int inputs = 2 * length;
+        for (int p = 0; p < span; p++) {
+            long w = (long) p * stride;
+            double w1r = twiddles.re(w);
+            double w1i = twiddles.im(w);
+            for (int q = 0; q < stride; q++) {
+                for (int t = 0; t < radix; t++) {
+                    int from = 2 * (q + stride * (p + t * span));
+                    work[inputs + 2 * t] = x[from];
+                    work[inputs + 2 * t + 1] = x[from + 1];
+                }
+                double wr = 1;
+                double wi = 0;
+                for (int u = 0; u < radix; u++) {
+                    double sr = 0;
+                    double si = 0;
+                    int k = 0;
+                    for (int t = 0; t < radix; t++) {
+                        double ar = work[inputs + 2 * t];
+                        double ai = work[inputs + 2 * t + 1];
+                        sr += ar * root[2 * k] - ai * root[2 * k + 1];
+                        si += ar * root[2 * k + 1] + ai * root[2 * k];
+                        k += u;
+                        if (k >= radix) {
+                            k -= radix;
+                        }
+                    }
+                    int to = 2 * (q + stride * (radix * p + u));
+                    y[to] = sr * wr - si * wi;
+                    y[to + 1] = sr * wi + si * wr;
+                    double nextR = wr * w1r - wi * w1i;
+                    wi = wr * w1i + wi * w1r;
+                    wr = nextR;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the prime factors of {@code n}, fours first, then a two if any is left, then the odd primes ascending
+     */
+    static int[] factor(int n) {
+        int[] factors = new int[32];
+        int count = 0;
+        while (n % 4 == 0) {
+            factors[count++] = 4;
+            n /= 4;
+        }
+        if (n % 2 == 0) {
+            factors[count++] = 2;
+            n /= 2;
+        }
+        for (int p = 3; (long) p * p <= n; p += 2) {
+            while (n % p == 0) {
+                factors[count++] = p;
+                n /= p;
+            }
+        }
+        if (n > 1) {
+            factors[count++] = n;
+        }
+        return Arrays.copyOf(factors, count);
+    }
+
+    /**
+     * exp(-2 pi i t / n) for {@code 0 <= t < n}, from two tables of about sqrt(n) entries each: the product of a
+     * coarse and a fine rotation.
+     */
+    static final class Twiddles {
+        private final int fineBits;
+        private final double[] coarse;
+        private final double[] fine;
+
+        Twiddles(int n) {
+            fineBits = (33 - Integer.numberOfLeadingZeros(Math.max(n - 1, 1))) / 2;
+            int fineSize = 1 << fineBits;
+            fine = new double[2 * fineSize];
+            for (int t = 0; t < fineSize; t++) {
+                fine[2 * t] = Math.cos(2 * Math.PI * t / n);
+                fine[2 * t + 1] = -Math.sin(2 * Math.PI * t / n);
+            }
+            int coarseSize = (int) (((long) n + fineSize - 1) >>> fineBits);
+            coarse = new double[2 * coarseSize];
+            for (int t = 0; t < coarseSize; t++) {
+                double angle = 2 * Math.PI * ((double) ((long) t << fineBits) / n);
+                coarse[2 * t] = Math.cos(angle);
+                coarse[2 * t + 1] = -Math.sin(angle);
+            }
+        }
+
+        double re(long t) {
+            int c = 2 * (int) (t >>> fineBits);
+            int f = 2 * (int) (t & ((1 << fineBits) - 1));
+            return coarse[c] * fine[f] - coarse[c + 1] * fine[f + 1];
+        }
+
+        double im(long t) {
+            int c = 2 * (int) (t >>> fineBits);
+            int f = 2 * (int) (t & ((1 << fineBits) - 1));
+            return coarse[c] * fine[f + 1] + coarse[c + 1] * fine[f];
+        }
+    }
+
+    /**
+     * X_k = w_k sum_j (x_j w_j) conj(w_(k - j)) with w_t = exp(-pi i t^2 / n): a circular convolution, done with
+     * power-of-two FFTs of at least 2n - 1 points.
+     */
+    private static final class Bluestein {
+        private final int length;
+        private final Fft convolution;
+        private final double[] chirp;
+        private final double[] filter;
+
+        Bluestein(int length) {
+            this.length = length;
+            int size = Integer.highestOneBit(2 * length - 1) << 1;
+            convolution = forLength(size);
+            chirp = new double[2 * length];
+            for (int k = 0; k < length; k++) {
+                // k^2 mod 2n keeps the angle small and exact
+                long square = (long) k * k % (2L * length);
+                chirp[2 * k] = Math.cos(Math.PI * square / length);
+                chirp[2 * k + 1] = -Math.sin(Math.PI * square / length);
+            }
+            filter = new double[2 * size];
+            for (int k = 0; k < length; k++) {
+                filter[2 * k] = chirp[2 * k];
+                filter[2 * k + 1] = -chirp[2 * k + 1];
+                if (k > 0) {
+                    filter[2 * (size - k)] = chirp[2 * k];
+                    filter[2 * (size - k) + 1] = -chirp[2 * k + 1];
+                }
+            }
+            convolution.transform(filter);
+        }
+
+        void transform(double[] data) {
+            double[] work = FftScratch.get(FftScratch.BLUESTEIN, 2 * convolution.length());
+            Arrays.fill(work, 0, 2 * convolution.length(), 0);
+            for (int k = 0; k < length; k++) {
+                multiply(data, k, chirp, k, work, k);
+            }
+            convolution.transform(work);
+            for (int k = 0; k < convolution.length(); k++) {
+                multiply(work, k, filter, k, work, k);
+            }
+            convolution.inverse(work);
+            double scale = 1.0 / convolution.length();
+            for (int k = 0; k < length; k++) {
+                multiply(work, k, chirp, k, data, k);
+                data[2 * k] *= scale;
+                data[2 * k + 1] *= scale;
+            }
+        }
+
+        private static void multiply(double[] a, int i, double[] b, int j, double[] out, int k) {
+            double re = a[2 * i] * b[2 * j] - a[2 * i + 1] * b[2 * j + 1];
+            double im = a[2 * i] * b[2 * j + 1] + a[2 * i + 1] * b[2 * j];
+            out[2 * k] = re;
+            out[2 * k + 1] = im;
+        }
+    }
+}
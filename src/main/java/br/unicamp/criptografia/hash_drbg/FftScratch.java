@@ -0,0 +1,43 @@
+package br.unicamp.criptografia.hash_drbg;
+
+/**
+ * Per-thread scratch arrays of {@link Fft} and {@link RealFft}, one per nesting level, so that repeated transforms
+ * allocate nothing. A caller's {@link #INPUT} goes through a real transform of odd length, which runs a Bluestein
+ * transform, which runs a Stockham one, each with its own level.
+ * <p>
+ * Arrays of up to {@link #MAX_KEPT_LENGTH} doubles are kept, 16 MiB per level and thread; longer ones are allocated
+ * per call.
+ */
+final class FftScratch {
+    static final int STOCKHAM = 0;
+    static final int BLUESTEIN = 1;
+    static final int REAL = 2;
+    /**
+     * the real values a caller transforms, e.g. the +-1 sequence of the {@link DiscreteFourierTransformTest}
+     */
+    static final int INPUT = 3;
+    /**
+     * enough for the Stockham transform of a 10^6-bit sequence, the length 2.6.7 recommends
+     */
+    static final int MAX_KEPT_LENGTH = 1 << 21;
+    private static final ThreadLocal<double[][]> ARRAYS = ThreadLocal.withInitial(() -> new double[4][]);
+
+    private FftScratch() {
+    }
+
+    /**
+     * @return an array of at least {@code length} doubles, with undefined contents
+     */
+    static double[] get(int level, int length) {
+        if (length > MAX_KEPT_LENGTH) {
+            return new double[length];
+        }
+        double[][] arrays = ARRAYS.get();
+        double[] array = arrays[level];
+        if (array == null || array.length < length) {
+            array = new double[length];
+            arrays[level] = array;
+        }
+        return array;
+    }
+}
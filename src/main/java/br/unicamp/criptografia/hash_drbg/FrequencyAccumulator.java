@@ -0,0 +1,27 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.util.List;
+
+/**
+ * Streaming {@link FrequencyTest}.
+ */
+public class FrequencyAccumulator implements StreamingSp80022Test {
+    private long length;
+    private long ones;
+
+    @Override
+    public String name() {
+        return FrequencyTest.NAME;
+    }
+
+    @Override
+    public void update(long word, int bits) {
+        ones += Long.bitCount(word);
+        length += bits;
+    }
+
+    @Override
+    public List<TestResult> finish(double significanceLevel) {
+        return List.of(FrequencyTest.evaluate(ones, length, significanceLevel));
+    }
+}
@@ -0,0 +1,34 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Erf;
+
+import java.util.List;
+
+/**
+ * 2.1 Frequency (Monobit) Test.
+ */
+public class FrequencyTest implements Sp80022Test {
+    static final String NAME = "Frequency";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<TestResult> run(BitSequence sequence, double significanceLevel) {
+        return List.of(evaluate(sequence.bitCount(), sequence.length(), significanceLevel));
+    }
+
+    static TestResult evaluate(long ones, long length, double significanceLevel) {
+        // 2.1.4 (1)
+        long sum = 2 * ones - length;
+
+        // 2.1.4 (2)
+        double observed = Math.abs(sum) / Math.sqrt(length);
+
+        // 2.1.4 (3)
+        double pValue = Erf.erfc(observed / Math.sqrt(2));
+        return TestResult.of(NAME, observed, pValue, significanceLevel);
+    }
+}
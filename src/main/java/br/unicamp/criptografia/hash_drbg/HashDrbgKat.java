@@ -0,0 +1,409 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.bouncycastle.crypto.prng.EntropySource;
+import org.bouncycastle.crypto.prng.drbg.HashSP800DRBG;
+import org.bouncycastle.crypto.prng.drbg.SP80090DRBG;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Replays the NIST CAVP known-answer tests of Hash_DRBG, the {@code Hash_DRBG.rsp} files of the DRBGVS vectors
+ * (no_reseed, pr_false and pr_true alike), through Bouncy Castle's {@link HashSP800DRBG}.
+ * <p>
+ * Files are memory-mapped and parsed in place: hex values are decoded straight from the mapped bytes, and no line
+ * becomes a String. Each case instantiates with its own entropy source, which returns the case's entropy inputs in
+ * order; SHA-256 and SHA-512 cases go through {@link DrbgMechanism#HASH_SHA256} and
+ * {@link DrbgMechanism#HASH_SHA512}, the others through the same construction over their digest. As DRBGVS does, a
+ * case reseeds if it has a reseed entropy input, generates twice and compares the second output; empty additional
+ * inputs are Null.
+ * <p>
+ * Cases are replayed by tasks on the common fork/join pool, each writing only its own slot of the results.
+ */
+public class HashDrbgKat {
+    private static final String[] DIGESTS = {
+            "SHA-1", "SHA-224", "SHA-256", "SHA-384", "SHA-512", "SHA-512/224", "SHA-512/256"
+    };
+    private static final byte[][] DIGEST_NAMES = ascii(DIGESTS);
+    private static final byte[] PREDICTION_RESISTANCE = ascii("PredictionResistance");
+    private static final byte[] ENTROPY_INPUT_LEN = ascii("EntropyInputLen");
+    private static final byte[] NONCE_LEN = ascii("NonceLen");
+    private static final byte[] PERSONALIZATION_STRING_LEN = ascii("PersonalizationStringLen");
+    private static final byte[] ADDITIONAL_INPUT_LEN = ascii("AdditionalInputLen");
+    private static final byte[] RETURNED_BITS_LEN = ascii("ReturnedBitsLen");
+    private static final byte[] TRUE = ascii("True");
+    private static final byte[] COUNT = ascii("COUNT");
+    private static final byte[] ENTROPY_INPUT = ascii("EntropyInput");
+    private static final byte[] NONCE = ascii("Nonce");
+    private static final byte[] PERSONALIZATION_STRING = ascii("PersonalizationString");
+    private static final byte[] ENTROPY_INPUT_RESEED = ascii("EntropyInputReseed");
+    private static final byte[] ADDITIONAL_INPUT_RESEED = ascii("AdditionalInputReseed");
+    private static final byte[] ADDITIONAL_INPUT = ascii("AdditionalInput");
+    private static final byte[] ENTROPY_INPUT_PR = ascii("EntropyInputPR");
+    private static final byte[] RETURNED_BITS = ascii("ReturnedBits");
+
+    /**
+     * The bracketed parameters shared by the cases that follow them.
+     */
+    public record Section(String digest, boolean predictionResistance, int entropyInputLen, int nonceLen,
+                          int personalizationStringLen, int additionalInputLen, int returnedBitsLen) {
+    }
+
+    public record Mismatch(Section section, int count, String expected, String actual) {
+    }
+
+    public record Summary(int cases, List<Mismatch> mismatches) {
+        public boolean passed() {
+            return mismatches.isEmpty();
+        }
+    }
+
+    /**
+     * One case as parsed, Null values being null.
+     */
+    static final class Case {
+        private final Section section;
+        private final int count;
+        private byte[] entropyInput;
+        private byte[] nonce;
+        private byte[] personalizationString;
+        private byte[] entropyInputReseed;
+        private byte[] additionalInputReseed;
+        private final byte[][] additionalInputs = new byte[2][];
+        private int additionalInputCount;
+        private final byte[][] entropyInputsPR = new byte[2][];
+        private int entropyInputPRCount;
+        private byte[] returnedBits;
+
+        Case(Section section, int count) {
+            this.section = section;
+            this.count = count;
+        }
+    }
+
+    /**
+     * java HashDrbgKat FILE...; the exit status is 1 if a case mismatches.
+     */
+    public static void main(String[] args) throws IOException {
+        long start = System.nanoTime();
+        Path[] files = new Path[args.length];
+        for (int i = 0; i < args.length; i++) {
+            files[i] = Path.of(args[i]);
+        }
+        Summary summary = run(files);
+        for (Mismatch mismatch : summary.mismatches()) {
+            System.out.println("MISMATCH " + mismatch);
+        }
+        System.out.printf("%d cases, %d mismatches, %d ms%n", summary.cases(), summary.mismatches().size(),
+                (System.nanoTime() - start) / 1_000_000);
+        System.exit(summary.passed() ? 0 : 1);
+    }
+
+    public static Summary run(Path... files) throws IOException {
+        List<Case> cases = new ArrayList<>();
+        for (Path file : files) {
+            try (FileChannel channel = FileChannel.open(file)) {
+                cases.addAll(parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+            }
+        }
+        return replay(cases);
+    }
+
+    static Summary replay(List<Case> cases) {
+        Mismatch[] results = new Mismatch[cases.size()];
+        IntStream.range(0, cases.size()).parallel().forEach(i -> results[i] = check(cases.get(i)));
+        return new Summary(cases.size(), Arrays.stream(results).filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * @return the cases of a response file, from its position to its limit, which are left unchanged
+     */
+    static List<Case> parse(ByteBuffer rsp) {
+        List<Case> cases = new ArrayList<>();
+        String digest = null;
+        boolean predictionResistance = false;
+        int[] lengths = new int[5];
+        Section section = null;
+        Case current = null;
+        int end = rsp.limit();
+        int line = rsp.position();
+        while (line < end) {
+            int lineEnd = line;
+            while (lineEnd < end && rsp.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int next = lineEnd + 1;
+            while (lineEnd > line && isSpace(rsp.get(lineEnd - 1))) {
+                lineEnd--;
+            }
+            while (line < lineEnd && isSpace(rsp.get(line))) {
+                line++;
+            }
+
+            if (line == lineEnd || rsp.get(line) == '#') {
+                // blank or comment
+            } else if (rsp.get(line) == '[') {
+                if (rsp.get(lineEnd - 1) != ']') {
+                    throw new InvalidParameterException("Unterminated section header at byte " + line);
+                }
+                section = null;
+                int equals = indexOf(rsp, line + 1, lineEnd - 1, (byte) '=');
+                if (equals < 0) {
+                    digest = digest(rsp, line + 1, lineEnd - 1);
+                } else {
+                    int keyEnd = trimEnd(rsp, line + 1, equals);
+                    int value = trimStart(rsp, equals + 1, lineEnd - 1);
+                    if (equalsKey(rsp, line + 1, keyEnd, PREDICTION_RESISTANCE)) {
+                        predictionResistance = equalsKey(rsp, value, lineEnd - 1, TRUE);
+                    } else if (equalsKey(rsp, line + 1, keyEnd, ENTROPY_INPUT_LEN)) {
+                        lengths[0] = parseInt(rsp, value, lineEnd - 1);
+                    } else if (equalsKey(rsp, line + 1, keyEnd, NONCE_LEN)) {
+                        lengths[1] = parseInt(rsp, value, lineEnd - 1);
+                    } else if (equalsKey(rsp, line + 1, keyEnd, PERSONALIZATION_STRING_LEN)) {
+                        lengths[2] = parseInt(rsp, value, lineEnd - 1);
+                    } else if (equalsKey(rsp, line + 1, keyEnd, ADDITIONAL_INPUT_LEN)) {
+                        lengths[3] = parseInt(rsp, value, lineEnd - 1);
+                    } else if (equalsKey(rsp, line + 1, keyEnd, RETURNED_BITS_LEN)) {
+                        lengths[4] = parseInt(rsp, value, lineEnd - 1);
+                    }
+                }
+            } else {
+                int equals = indexOf(rsp, line, lineEnd, (byte) '=');
+                if (equals < 0) {
+                    throw new InvalidParameterException("Expected KEY = VALUE at byte " + line);
+                }
+                int keyEnd = trimEnd(rsp, line, equals);
+                int value = trimStart(rsp, equals + 1, lineEnd);
+                if (equalsKey(rsp, line, keyEnd, COUNT)) {
+                    if (digest == null) {
+                        throw new InvalidParameterException("Case before any digest header at byte " + line);
+                    }
+                    if (section == null) {
+                        section = new Section(digest, predictionResistance, lengths[0], lengths[1], lengths[2],
+                                lengths[3], lengths[4]);
+                    }
+                    current = new Case(section, parseInt(rsp, value, lineEnd));
+                } else if (current == null) {
+                    throw new InvalidParameterException("Value outside a case at byte " + line);
+                } else if (equalsKey(rsp, line, keyEnd, ENTROPY_INPUT)) {
+                    current.entropyInput = hex(rsp, value, lineEnd);
+                } else if (equalsKey(rsp, line, keyEnd, NONCE)) {
+                    current.nonce = hex(rsp, value, lineEnd);
+                } else if (equalsKey(rsp, line, keyEnd, PERSONALIZATION_STRING)) {
+                    current.personalizationString = hex(rsp, value, lineEnd);
+                } else if (equalsKey(rsp, line, keyEnd, ENTROPY_INPUT_RESEED)) {
+                    current.entropyInputReseed = hex(rsp, value, lineEnd);
+                } else if (equalsKey(rsp, line, keyEnd, ADDITIONAL_INPUT_RESEED)) {
+                    current.additionalInputReseed = hex(rsp, value, lineEnd);
+                } else if (equalsKey(rsp, line, keyEnd, ADDITIONAL_INPUT)) {
+                    current.additionalInputs[current.additionalInputCount++ & 1] = hex(rsp, value, lineEnd);
+                } else if (equalsKey(rsp, line, keyEnd, ENTROPY_INPUT_PR)) {
+                    current.entropyInputsPR[current.entropyInputPRCount++ & 1] = hex(rsp, value, lineEnd);
+                } else if (equalsKey(rsp, line, keyEnd, RETURNED_BITS)) {
+                    current.returnedBits = hex(rsp, value, lineEnd);
+                    cases.add(current);
+                    current = null;
+                }
+            }
+            line = next;
+        }
+        return cases;
+    }
+
+    /**
+     * @return null if the case gives its returned bits
+     */
+    private static Mismatch check(Case c) {
+        byte[] actual;
+        try {
+            actual = generate(c);
+        } catch (RuntimeException e) {
+            return new Mismatch(c.section, c.count, hex(c.returnedBits), e.toString());
+        }
+        return Arrays.equals(actual, c.returnedBits)
+                ? null
+                : new Mismatch(c.section, c.count, hex(c.returnedBits), hex(actual));
+    }
+
+    private static byte[] generate(Case c) {
+        Section section = c.section;
+        List<byte[]> entropyInputs = new ArrayList<>(4);
+        entropyInputs.add(c.entropyInput);
+        if (c.entropyInputReseed != null) {
+            entropyInputs.add(c.entropyInputReseed);
+        }
+        for (int i = 0; i < c.entropyInputPRCount; i++) {
+            entropyInputs.add(c.entropyInputsPR[i]);
+        }
+        SP80090DRBG drbg = instantiate(section, new ReplayedEntropySource(entropyInputs, section.entropyInputLen()),
+                c.nonce, c.personalizationString);
+
+        if (c.entropyInputReseed != null) {
+            drbg.reseed(c.additionalInputReseed);
+        }
+        byte[] output = new byte[section.returnedBitsLen() / 8];
+        drbg.generate(output, c.additionalInputs[0], section.predictionResistance());
+        drbg.generate(output, c.additionalInputs[1], section.predictionResistance());
+        return output;
+    }
+
+    private static SP80090DRBG instantiate(Section section, EntropySource entropySource, byte[] nonce,
+                                           byte[] personalizationString) {
+        return switch (section.digest()) {
+            case "SHA-256" -> DrbgMechanism.HASH_SHA256.instantiate(entropySource, nonce, personalizationString);
+            case "SHA-512" -> DrbgMechanism.HASH_SHA512.instantiate(entropySource, nonce, personalizationString);
+            // the vectors are at the digest's highest strength, SP 800-57's, which the entropy input length gives
+            default -> new HashSP800DRBG(JcaDigest.of(section.digest()),
+                    Math.min(section.entropyInputLen(), BouncyCastleDRBG.SECURITY_STRENGTH_BITS), entropySource,
+                    personalizationString, nonce);
+        };
+    }
+
+    private static String digest(ByteBuffer rsp, int from, int to) {
+        for (int i = 0; i < DIGEST_NAMES.length; i++) {
+            if (equalsKey(rsp, from, to, DIGEST_NAMES[i])) {
+                return DIGESTS[i];
+            }
+        }
+        byte[] name = new byte[to - from];
+        rsp.get(from, name);
+        throw new InvalidParameterException("Unsupported digest: " + new String(name, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return the bytes of the hex digits in [from, to), null if there are none
+     */
+    private static byte[] hex(ByteBuffer rsp, int from, int to) {
+        if ((to - from) % 2 != 0) {
+            throw new InvalidParameterException("Odd number of hex digits at byte " + from);
+        }
+        if (from == to) {
+            return null;
+        }
+        byte[] bytes = new byte[(to - from) / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (hexDigit(rsp, from + 2 * i) << 4 | hexDigit(rsp, from + 2 * i + 1));
+        }
+        return bytes;
+    }
+
+    private static int hexDigit(ByteBuffer rsp, int index) {
+        int digit = Character.digit(rsp.get(index), 16);
+        if (digit < 0) {
+            throw new InvalidParameterException("Invalid hex digit at byte " + index);
+        }
+        return digit;
+    }
+
+    private static String hex(byte[] bytes) {
+        return bytes == null ? "" : HexFormat.of().formatHex(bytes);
+    }
+
+    private static int parseInt(ByteBuffer rsp, int from, int to) {
+        if (from == to || to - from > 9) {
+            throw new InvalidParameterException("Invalid number at byte " + from);
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = rsp.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new InvalidParameterException("Invalid number at byte " + from);
+            }
+            value = 10 * value + digit;
+        }
+        return value;
+    }
+
+    private static boolean equalsKey(ByteBuffer rsp, int from, int to, byte[] key) {
+        if (to - from != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (rsp.get(from + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(ByteBuffer rsp, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (rsp.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int trimStart(ByteBuffer rsp, int from, int to) {
+        while (from < to && isSpace(rsp.get(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(ByteBuffer rsp, int from, int to) {
+        while (to > from && isSpace(rsp.get(to - 1))) {
+            to--;
+        }
+        return to;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[][] ascii(String[] strings) {
+        byte[][] bytes = new byte[strings.length][];
+        for (int i = 0; i < strings.length; i++) {
+            bytes[i] = ascii(strings[i]);
+        }
+        return bytes;
+    }
+
+    /**
+     * The entropy inputs of one case, in the order the DRBG asks for them.
+     */
+    private static final class ReplayedEntropySource implements EntropySource {
+        private final List<byte[]> entropyInputs;
+        private final int entropySize;
+        private int next;
+
+        ReplayedEntropySource(List<byte[]> entropyInputs, int entropySize) {
+            this.entropyInputs = entropyInputs;
+            this.entropySize = entropySize;
+        }
+
+        @Override
+        public boolean isPredictionResistant() {
+            return true;
+        }
+
+        @Override
+        public byte[] getEntropy() {
+            if (next == entropyInputs.size()) {
+                throw new IllegalStateException("Case asked for more entropy inputs than it has");
+            }
+            return entropyInputs.get(next++);
+        }
+
+        @Override
+        public int entropySize() {
+            return entropySize;
+        }
+    }
+}
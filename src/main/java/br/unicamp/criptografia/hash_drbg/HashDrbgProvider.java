@@ -0,0 +1,24 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.security.Provider;
+import java.util.Map;
+
+/**
+ * JCA provider of {@value #ALGORITHM}, backed by {@link HashDrbgSecureRandomSpi}.
+ * <pre>
+ * Security.addProvider(new HashDrbgProvider());
+ * SecureRandom random = SecureRandom.getInstance("HashDRBG-SHA256");
+ * </pre>
+ */
+public class HashDrbgProvider extends Provider {
+    public static final String NAME = "HashDRBG";
+    public static final String ALGORITHM = "HashDRBG-SHA256";
+
+    public HashDrbgProvider() {
+        super(NAME, "1.0", "SP 800-90A Hash_DRBG over SHA-256, one instance per platform thread, striped for "
+                + "virtual threads");
+        // the SPI does its own per-thread dispatch, so SecureRandom need not serialize calls
+        putService(new Service(this, "SecureRandom", ALGORITHM, HashDrbgSecureRandomSpi.class.getName(),
+                null, Map.of("ThreadSafe", "true")));
+    }
+}
@@ -0,0 +1,65 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.security.SecureRandom;
+import java.security.SecureRandomSpi;
+
+/**
+ * {@link SecureRandomSpi} over {@link BouncyCastleHashDRBG} that never shares a DRBG between threads that run at the
+ * same time.
+ * <p>
+ * Platform threads each get their own instance. Virtual threads are too many and too short-lived for that, so they
+ * share a few stripes, about two per core, each an instance whose requests wait on its {@link BouncyCastleDRBG} lock,
+ * a {@link java.util.concurrent.locks.ReentrantLock} that does not pin their carrier. Every instance is seeded
+ * independently, with its own nonce and personalization string from {@link CryptoHelper}.
+ */
+public class HashDrbgSecureRandomSpi extends SecureRandomSpi {
+    private static final int NONCE_LENGTH = 128;
+    private final ThreadLocal<BouncyCastleHashDRBG> perThread =
+            ThreadLocal.withInitial(HashDrbgSecureRandomSpi::newGenerator);
+    /**
+     * instantiated up front, which only draws their nonces: the DRBGs are instantiated on first use
+     */
+    private final BouncyCastleHashDRBG[] stripes;
+
+    public HashDrbgSecureRandomSpi() {
+        int count = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1);
+        stripes = new BouncyCastleHashDRBG[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = newGenerator();
+        }
+    }
+
+    @Override
+    protected void engineSetSeed(byte[] seed) {
+        // supplements, never replaces, the entropy: the seed is additional input to a reseed
+        generator().reseed(seed);
+    }
+
+    @Override
+    protected void engineNextBytes(byte[] bytes) {
+        generator().generate(bytes, 0, bytes.length);
+    }
+
+    @Override
+    protected byte[] engineGenerateSeed(int numBytes) {
+        return SeedHolder.SEED_SOURCE.generateSeed(numBytes);
+    }
+
+    private BouncyCastleHashDRBG generator() {
+        Thread thread = Thread.currentThread();
+        if (!thread.isVirtual()) {
+            return perThread.get();
+        }
+        long id = thread.threadId();
+        return stripes[(int) (id ^ (id >>> 32)) & (stripes.length - 1)];
+    }
+
+    private static BouncyCastleHashDRBG newGenerator() {
+        return new BouncyCastleHashDRBG(CryptoHelper.generateNonce(NONCE_LENGTH),
+                CryptoHelper.generatePersonalizationString());
+    }
+
+    private static final class SeedHolder {
+        private static final SecureRandom SEED_SOURCE = new SecureRandom();
+    }
+}
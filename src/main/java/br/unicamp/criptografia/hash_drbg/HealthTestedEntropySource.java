@@ -0,0 +1,107 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.bouncycastle.crypto.prng.EntropySource;
+import org.bouncycastle.crypto.prng.EntropySourceProvider;
+
+import java.security.SecureRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Entropy source that runs each seed of another source through {@link HealthTests} before handing it out.
+ * <p>
+ * The first call also tests, and discards, {@value HealthTests#STARTUP_SAMPLES} samples as the start-up test of
+ * SP 800-90B 4.3. Calls are serialized by a {@link ReentrantLock}, so that the tests see one stream of samples and a
+ * virtual thread reading under it does not pin its carrier.
+ */
+public class HealthTestedEntropySource implements EntropySource {
+    private final EntropySource source;
+    private final HealthTests healthTests;
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean started;
+
+    public HealthTestedEntropySource(EntropySource source, HealthTests healthTests) {
+        this.source = source;
+        this.healthTests = healthTests;
+    }
+
+    /**
+     * Sources of {@code secureRandom} bytes, each tested on its own; failures throw {@link EntropyHealthException}.
+     *
+     * @param minEntropyPerByte the assessed min-entropy of a byte of {@code secureRandom}
+     */
+    public static EntropySourceProvider provider(SecureRandom secureRandom, double minEntropyPerByte) {
+        return bitsRequired -> new HealthTestedEntropySource(
+                new SecureRandomEntropySource(secureRandom, bitsRequired), new HealthTests(minEntropyPerByte));
+    }
+
+    /**
+     * Sources of {@code secureRandom} bytes, each tested on its own.
+     *
+     * @param minEntropyPerByte the assessed min-entropy of a byte of {@code secureRandom}
+     * @param onFailure         told of each failure; when it returns, the failing seed is handed out all the same
+     */
+    public static EntropySourceProvider provider(SecureRandom secureRandom, double minEntropyPerByte,
+                                                 Consumer<HealthTests.Failure> onFailure) {
+        return bitsRequired -> new HealthTestedEntropySource(
+                new SecureRandomEntropySource(secureRandom, bitsRequired),
+                new HealthTests(minEntropyPerByte, HealthTests.DEFAULT_FALSE_POSITIVE_EXPONENT, onFailure));
+    }
+
+    @Override
+    public boolean isPredictionResistant() {
+        return source.isPredictionResistant();
+    }
+
+    /**
+     * @throws EntropyHealthException with the default failure handler, if the seed fails
+     */
+    @Override
+    public byte[] getEntropy() {
+        lock.lock();
+        try {
+            if (!started) {
+                for (long samples = 0; samples < HealthTests.STARTUP_SAMPLES; ) {
+                    byte[] discarded = source.getEntropy();
+                    healthTests.test(discarded, 0, discarded.length);
+                    samples += discarded.length;
+                }
+                started = true;
+            }
+            byte[] entropy = source.getEntropy();
+            healthTests.test(entropy, 0, entropy.length);
+            return entropy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int entropySize() {
+        return source.entropySize();
+    }
+
+    public HealthTests getHealthTests() {
+        return healthTests;
+    }
+
+    private record SecureRandomEntropySource(SecureRandom secureRandom, int bitsRequired) implements EntropySource {
+
+        @Override
+        public boolean isPredictionResistant() {
+            return true;
+        }
+
+        @Override
+        public byte[] getEntropy() {
+            byte[] entropy = new byte[(bitsRequired + 7) / 8];
+            secureRandom.nextBytes(entropy);
+            return entropy;
+        }
+
+        @Override
+        public int entropySize() {
+            return bitsRequired;
+        }
+    }
+}
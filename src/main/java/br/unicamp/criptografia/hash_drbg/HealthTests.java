@@ -0,0 +1,251 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.InvalidParameterException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * The continuous health tests of SP 800-90B 4.4, the Repetition Count Test and the Adaptive Proportion Test, over a
+ * stream of 8-bit samples.
+ * <p>
+ * Both tests keep a few counters and no allocation. Samples are compared eight at a time within a long, and the
+ * rare stretches where a count might reach its cutoff are tested again a sample at a time. A failure is reported to
+ * the handler once, when a count reaches its cutoff; the default handler throws an {@link EntropyHealthException}.
+ * Instances are not thread-safe.
+ */
+public final class HealthTests {
+    /**
+     * Window of the adaptive proportion test for non-binary samples (4.4.2).
+     */
+    public static final int ADAPTIVE_PROPORTION_WINDOW = 512;
+    /**
+     * Samples to test at start-up before any output is used (4.3).
+     */
+    public static final int STARTUP_SAMPLES = 1024;
+    /**
+     * -log2 of the false positive probability per sample, the least sensitive of 4.4's recommended 20 to 40: a
+     * default handler throws, about once per 2^40 bytes of a good source.
+     */
+    public static final int DEFAULT_FALSE_POSITIVE_EXPONENT = 40;
+    private static final VarHandle BIG_ENDIAN_LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final long BYTE_ONES = 0x0101010101010101L;
+    private static final long LOW_SEVEN_BITS = 0x7f7f7f7f7f7f7f7fL;
+    private static final long HIGH_BITS = ~LOW_SEVEN_BITS;
+    private final double minEntropy;
+    private final int repetitionCutoff;
+    private final int proportionCutoff;
+    private final Consumer<Failure> onFailure;
+    private long samples;
+    private int lastSample = -1;
+    private int repetitions;
+    private int windowSample;
+    private int windowCount;
+    private int windowIndex = ADAPTIVE_PROPORTION_WINDOW;
+
+    public enum Test {
+        REPETITION_COUNT, ADAPTIVE_PROPORTION
+    }
+
+    /**
+     * @param sample  the repeated sample value
+     * @param count   its occurrences, in a row or within the window
+     * @param samples samples tested up to and including the failing one
+     */
+    public record Failure(Test test, int sample, int count, long samples) {
+
+        @Override
+        public String toString() {
+            return test + " health test failed: sample " + sample + " seen " + count + " times, after " + samples
+                    + " samples";
+        }
+    }
+
+    /**
+     * Failures throw {@link EntropyHealthException}.
+     */
+    public HealthTests(double minEntropyPerSample) {
+        this(minEntropyPerSample, DEFAULT_FALSE_POSITIVE_EXPONENT, failure -> {
+            throw new EntropyHealthException(failure);
+        });
+    }
+
+    /**
+     * @param minEntropyPerSample    H, the assessed min-entropy of a byte, in (0, 8]
+     * @param falsePositiveExponent  the false positive probability is 2^-falsePositiveExponent per sample
+     * @param onFailure              told of each failure, from the thread that tested the sample
+     */
+    public HealthTests(double minEntropyPerSample, int falsePositiveExponent, Consumer<Failure> onFailure) {
+        if (!(minEntropyPerSample > 0 && minEntropyPerSample <= 8)) {
+            throw new InvalidParameterException("Invalid min-entropy per sample: " + minEntropyPerSample);
+        }
+        if (falsePositiveExponent < 1 || falsePositiveExponent > 64) {
+            throw new InvalidParameterException("Invalid false positive exponent: " + falsePositiveExponent);
+        }
+        this.minEntropy = minEntropyPerSample;
+        this.repetitionCutoff = repetitionCountCutoff(minEntropyPerSample, falsePositiveExponent);
+        this.proportionCutoff = adaptiveProportionCutoff(minEntropyPerSample, falsePositiveExponent);
+        this.onFailure = onFailure;
+    }
+
+    /**
+     * Tests {@code input[offset, offset + length)}, each byte a sample, continuing from the previous call.
+     */
+    public void test(byte[] input, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, input.length);
+        int i = offset;
+        int end = offset + length;
+        while (i < end) {
+            int chunk = Math.min(end - i, ADAPTIVE_PROPORTION_WINDOW - windowIndex) & -Long.BYTES;
+            if (chunk == 0) {
+                // the first sample of a window, or the last few of a window or of the input
+                test(input[i++] & 0xff);
+                continue;
+            }
+            if (testWords(input, i, chunk)) {
+                i += chunk;
+            } else {
+                for (int stop = i + chunk; i < stop; i++) {
+                    test(input[i] & 0xff);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests {@code length / 8} words of samples within the current window, as long as no test can fail in them.
+     *
+     * @return false, leaving the state as it was, if a test might fail
+     */
+    private boolean testWords(byte[] input, int from, int length) {
+        if (repetitionCutoff < 4) {
+            return false;
+        }
+        long pattern = windowSample * BYTE_ONES;
+        long previous = lastSample;
+        // the high bit of each byte equal to the one before it, for the last sample before the words
+        long previousRepeats = repetitions > 1 ? 0x80 : 0;
+        long triples = 0;
+        long matchesPerByte = 0;
+        for (int i = from, end = from + length; i < end; i += Long.BYTES) {
+            long word = (long) BIG_ENDIAN_LONGS.get(input, i);
+            long repeats = zeroBytes(word ^ (word >>> 8 | previous << 56));
+            triples |= repeats & (repeats << 8 | previousRepeats << 56);
+            // at most 64 per byte within a window
+            matchesPerByte += zeroBytes(word ^ pattern) >>> 7;
+            previous = word;
+            previousRepeats = repeats;
+        }
+        long pairs = (matchesPerByte & 0x00ff00ff00ff00ffL) + (matchesPerByte >>> 8 & 0x00ff00ff00ff00ffL);
+        int matches = (int) (pairs * 0x0001000100010001L >>> 48);
+        // a failing run has three equal samples in a row
+        if (triples != 0 || windowCount + matches >= proportionCutoff) {
+            return false;
+        }
+
+        samples += length;
+        windowIndex += length;
+        windowCount += matches;
+        lastSample = (int) previous & 0xff;
+        // the last word has no three equal samples in a row, so a byte differs from its predecessor
+        repetitions = Long.numberOfTrailingZeros(~previousRepeats & HIGH_BITS) / 8 + 1;
+        return true;
+    }
+
+    private void test(int sample) {
+        samples++;
+
+        // 4.4.1
+        if (sample == lastSample) {
+            if (++repetitions == repetitionCutoff) {
+                onFailure.accept(new Failure(Test.REPETITION_COUNT, sample, repetitions, samples));
+            }
+        } else {
+            lastSample = sample;
+            repetitions = 1;
+        }
+
+        // 4.4.2
+        if (windowIndex == ADAPTIVE_PROPORTION_WINDOW) {
+            windowSample = sample;
+            windowCount = 1;
+            windowIndex = 1;
+        } else {
+            windowIndex++;
+            if (sample == windowSample && ++windowCount == proportionCutoff) {
+                onFailure.accept(new Failure(Test.ADAPTIVE_PROPORTION, sample, windowCount, samples));
+            }
+        }
+    }
+
+    /**
+     * @return the high bit of each zero byte of {@code x}
+     */
+    private static long zeroBytes(long x) {
+        return ~((x & LOW_SEVEN_BITS) + LOW_SEVEN_BITS | x | LOW_SEVEN_BITS);
+    }
+
+    public double getMinEntropy() {
+        return minEntropy;
+    }
+
+    /**
+     * @return C of 4.4.1: this many identical samples in a row fail
+     */
+    public int getRepetitionCutoff() {
+        return repetitionCutoff;
+    }
+
+    /**
+     * @return C of 4.4.2: this many samples equal to the first of a window fail
+     */
+    public int getProportionCutoff() {
+        return proportionCutoff;
+    }
+
+    /**
+     * @return samples tested so far
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * C = 1 + ceil(-log2(alpha) / H)
+     */
+    static int repetitionCountCutoff(double minEntropy, int falsePositiveExponent) {
+        return 1 + (int) Math.ceil(falsePositiveExponent / minEntropy);
+    }
+
+    /**
+     * C = 1 + CRITBINOM(W, 2^-H, 1 - alpha), where CRITBINOM is the least k such that P(Binomial(W, 2^-H) <= k) is at
+     * least 1 - alpha; at most W.
+     */
+    static int adaptiveProportionCutoff(double minEntropy, int falsePositiveExponent) {
+        int window = ADAPTIVE_PROPORTION_WINDOW;
+        double p = Math.pow(2, -minEntropy);
+        double alpha = Math.pow(2, -falsePositiveExponent);
+        // in logarithms, (1 - p)^W underflows for small H
+        double[] pmf = new double[window + 1];
+        double logPmf = window * Math.log1p(-p);
+        double logOdds = Math.log(p) - Math.log1p(-p);
+        for (int k = 0; k <= window; k++) {
+            if (k > 0) {
+                logPmf += Math.log((double) (window - k + 1) / k) + logOdds;
+            }
+            pmf[k] = Math.exp(logPmf);
+        }
+        // tail = P(X > k)
+        double tail = 0;
+        for (int k = window; k > 0; k--) {
+            if (tail + pmf[k] > alpha) {
+                return Math.min(1 + k, window);
+            }
+            tail += pmf[k];
+        }
+        return 1;
+    }
+}
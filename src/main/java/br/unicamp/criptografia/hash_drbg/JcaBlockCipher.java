@@ -0,0 +1,65 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.InvalidParameterException;
+
+/**
+ * Bouncy Castle {@link BlockCipher} over the JCA's AES in ECB mode, so CTR_DRBG encrypts with the JDK's AES-NI
+ * intrinsics rather than Bouncy Castle's table-based {@code AESEngine}.
+ */
+final class JcaBlockCipher implements BlockCipher {
+    private static final int BLOCK_SIZE = 16;
+    private final Cipher cipher;
+
+    JcaBlockCipher() {
+        try {
+            cipher = Cipher.getInstance("AES/ECB/NoPadding");
+        } catch (GeneralSecurityException e) {
+            // AES is required of every JDK
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void init(boolean forEncryption, CipherParameters params) {
+        if (!(params instanceof KeyParameter key)) {
+            throw new InvalidParameterException("AES takes a key, not " + params);
+        }
+        try {
+            cipher.init(forEncryption ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE,
+                    new SecretKeySpec(key.getKey(), "AES"));
+        } catch (GeneralSecurityException e) {
+            throw new InvalidParameterException(e.getMessage());
+        }
+    }
+
+    @Override
+    public String getAlgorithmName() {
+        return "AES";
+    }
+
+    @Override
+    public int getBlockSize() {
+        return BLOCK_SIZE;
+    }
+
+    @Override
+    public int processBlock(byte[] in, int inOff, byte[] out, int outOff) {
+        try {
+            return cipher.update(in, inOff, BLOCK_SIZE, out, outOff);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        // ECB keeps no state between blocks
+    }
+}
@@ -0,0 +1,86 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.bouncycastle.crypto.ExtendedDigest;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Bouncy Castle {@link ExtendedDigest} over a JCA {@link MessageDigest}, so the DRBG mechanisms hash with the JDK's
+ * intrinsics (SHA extensions, AVX2) rather than Bouncy Castle's Java code. The algorithm name is the one Bouncy Castle
+ * uses for the same digest, which its DRBGs look the security strength up by.
+ */
+final class JcaDigest implements ExtendedDigest {
+    private final MessageDigest digest;
+    private final int byteLength;
+
+    /**
+     * @param algorithm  a name known to both the JCA and Bouncy Castle, e.g. SHA-256
+     * @param byteLength the internal block size in bytes, which HMAC pads keys to
+     */
+    JcaDigest(String algorithm, int byteLength) {
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 and SHA-512 are required of every JDK
+            throw new IllegalStateException(e);
+        }
+        this.byteLength = byteLength;
+    }
+
+    /**
+     * @param algorithm SHA-1 or a SHA-2 digest, e.g. SHA-512/256
+     */
+    static JcaDigest of(String algorithm) {
+        boolean sha512Family = algorithm.startsWith("SHA-384") || algorithm.startsWith("SHA-512");
+        return new JcaDigest(algorithm, sha512Family ? 128 : 64);
+    }
+
+    static JcaDigest sha256() {
+        return new JcaDigest("SHA-256", 64);
+    }
+
+    static JcaDigest sha512() {
+        return new JcaDigest("SHA-512", 128);
+    }
+
+    @Override
+    public String getAlgorithmName() {
+        return digest.getAlgorithm();
+    }
+
+    @Override
+    public int getDigestSize() {
+        return digest.getDigestLength();
+    }
+
+    @Override
+    public int getByteLength() {
+        return byteLength;
+    }
+
+    @Override
+    public void update(byte in) {
+        digest.update(in);
+    }
+
+    @Override
+    public void update(byte[] in, int inOff, int len) {
+        digest.update(in, inOff, len);
+    }
+
+    @Override
+    public int doFinal(byte[] out, int outOff) {
+        try {
+            return digest.digest(out, outOff, out.length - outOff);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        digest.reset();
+    }
+}
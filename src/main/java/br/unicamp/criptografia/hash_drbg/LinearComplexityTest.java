@@ -0,0 +1,186 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Gamma;
+
+import java.security.InvalidParameterException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 2.10 Linear Complexity Test.
+ * <p>
+ * Berlekamp-Massey runs on packed polynomials: the discrepancy is the parity of the connection polynomial ANDed with
+ * the reversed block, and the update XORs a shifted copy of the previous polynomial, 64 coefficients at a time.
+ * Blocks are independent and run in parallel.
+ */
+public class LinearComplexityTest implements Sp80022Test {
+    static final String NAME = "LinearComplexity";
+    public static final int DEFAULT_BLOCK_LENGTH = 500;
+    /**
+     * 2.10.4 (5), with pi_0 = 0.01047 as in the NIST reference implementation and the 2.10.8 example, rather than the
+     * 0.010417 of the table
+     */
+    private static final double[] PROBABILITIES = {0.01047, 0.03125, 0.125, 0.5, 0.25, 0.0625, 0.020833};
+    private final int lengthOfEachBlock;
+
+    public LinearComplexityTest() {
+        this(DEFAULT_BLOCK_LENGTH);
+    }
+
+    /**
+     * @param lengthOfEachBlock M, between 500 and 5000 as 2.10.7 recommends
+     */
+    public LinearComplexityTest(int lengthOfEachBlock) {
+        if (lengthOfEachBlock < 1) {
+            throw new InvalidParameterException("Invalid block size: " + lengthOfEachBlock);
+        }
+        this.lengthOfEachBlock = lengthOfEachBlock;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<TestResult> run(BitSequence sequence, double significanceLevel) {
+        // 2.10.4 (1)
+        long nonOverlappingBlocks = sequence.length() / lengthOfEachBlock;
+        if (nonOverlappingBlocks == 0 || nonOverlappingBlocks > Integer.MAX_VALUE) {
+            throw new InvalidParameterException("Invalid number of blocks: (length) " + sequence.length()
+                    + "; (lengthOfEachBlock) " + lengthOfEachBlock);
+        }
+
+        // 2.10.4 (2)
+        int[] linearComplexities = new int[(int) nonOverlappingBlocks];
+        IntStream.range(0, linearComplexities.length).parallel().forEach(block -> linearComplexities[block] =
+                linearComplexity(sequence, (long) block * lengthOfEachBlock, lengthOfEachBlock));
+
+        // 2.10.4 (3), (4) and (5)
+        double mean = mean(lengthOfEachBlock);
+        double sign = lengthOfEachBlock % 2 == 0 ? 1 : -1;
+        long[] frequencies = new long[PROBABILITIES.length];
+        for (int linearComplexity : linearComplexities) {
+            double t = sign * (linearComplexity - mean) + 2.0 / 9;
+            frequencies[frequencyClass(t)]++;
+        }
+        return List.of(evaluate(frequencies, significanceLevel));
+    }
+
+    static TestResult evaluate(long[] frequencies, double significanceLevel) {
+        long blocks = 0;
+        for (long frequency : frequencies) {
+            blocks += frequency;
+        }
+
+        // 2.10.4 (6)
+        double chiSquareStatisticObserved = 0;
+        for (int i = 0; i < frequencies.length; i++) {
+            double expected = blocks * PROBABILITIES[i];
+            chiSquareStatisticObserved += (frequencies[i] - expected) * (frequencies[i] - expected) / expected;
+        }
+
+        // 2.10.4 (7)
+        double pValue = Gamma.regularizedGammaQ((PROBABILITIES.length - 1) / 2.0, chiSquareStatisticObserved / 2);
+        return TestResult.of(NAME, chiSquareStatisticObserved, pValue, significanceLevel);
+    }
+
+    /**
+     * 2.10.4 (3): the theoretical mean of the linear complexity of M random bits
+     */
+    static double mean(int lengthOfEachBlock) {
+        double sign = lengthOfEachBlock % 2 == 0 ? -1 : 1;
+        return lengthOfEachBlock / 2.0 + (9 + sign) / 36
+                - (lengthOfEachBlock / 3.0 + 2.0 / 9) / Math.pow(2, lengthOfEachBlock);
+    }
+
+    private static int frequencyClass(double t) {
+        if (t <= -2.5) {
+            return 0;
+        }
+        if (t > 2.5) {
+            return 6;
+        }
+        return (int) Math.ceil(t - 0.5) + 3;
+    }
+
+    /**
+     * Berlekamp-Massey over bits {@code [from, from + length)}. Polynomials and the block keep bit {@code i} at
+     * position {@code i % 64} of word {@code i / 64}; the block is stored reversed, r_k = s_(length - 1 - k), so
+     * that the terms s_(n - i) of the discrepancy at step n line up with the coefficients c_i.
+     *
+     * @return the length of the shortest LFSR that generates the bits
+     */
+    static int linearComplexity(BitSequence sequence, long from, int length) {
+        int words = (length >>> 6) + 3;
+        long[] reversed = new long[words];
+        for (int i = 0; i < length; i += Long.SIZE) {
+            int count = Math.min(Long.SIZE, length - i);
+            long chunk = sequence.bits(from + i, count);
+            // bit j of the chunk is s_(i + count - 1 - j), which is r_(length - i - count + j)
+            int k = length - i - count;
+            reversed[k >>> 6] |= chunk << (k & 63);
+            if ((k & 63) != 0) {
+                reversed[(k >>> 6) + 1] |= chunk >>> (Long.SIZE - (k & 63));
+            }
+        }
+
+        long[] connection = new long[words];
+        long[] previous = new long[words];
+        long[] saved = new long[words];
+        connection[0] = 1;
+        previous[0] = 1;
+        int complexity = 0;
+        int previousDegree = 0;
+        int lastUpdate = -1;
+        for (int n = 0; n < length; n++) {
+            // d = sum_(i = 0..L) c_i s_(n - i), with s_(n - i) = r_(length - 1 - n + i)
+            int offset = length - 1 - n;
+            long discrepancy = 0;
+            for (int w = 0; w <= complexity >>> 6; w++) {
+                discrepancy ^= connection[w] & window(reversed, offset + (w << 6));
+            }
+            if ((Long.bitCount(discrepancy) & 1) == 0) {
+                continue;
+            }
+
+            System.arraycopy(connection, 0, saved, 0, words);
+            // C(x) += x^(n - m) B(x)
+            int shift = n - lastUpdate;
+            int wordShift = shift >>> 6;
+            int bitShift = shift & 63;
+            for (int w = 0; w <= previousDegree >>> 6; w++) {
+                connection[w + wordShift] ^= previous[w] << bitShift;
+                if (bitShift != 0) {
+                    connection[w + wordShift + 1] ^= previous[w] >>> (Long.SIZE - bitShift);
+                }
+            }
+            if (2 * complexity <= n) {
+                previousDegree = complexity;
+                complexity = n + 1 - complexity;
+                lastUpdate = n;
+                long[] swap = previous;
+                previous = saved;
+                saved = swap;
+            }
+        }
+        return complexity;
+    }
+
+    /**
+     * @return the 64 bits starting at bit {@code position}
+     */
+    private static long window(long[] bits, int position) {
+        int index = position >>> 6;
+        int shift = position & 63;
+        long value = bits[index] >>> shift;
+        if (shift != 0) {
+            value |= bits[index + 1] << (Long.SIZE - shift);
+        }
+        return value;
+    }
+
+    public int getLengthOfEachBlock() {
+        return lengthOfEachBlock;
+    }
+}
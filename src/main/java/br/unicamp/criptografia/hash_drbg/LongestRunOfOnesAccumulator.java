@@ -0,0 +1,75 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.util.List;
+
+/**
+ * Streaming {@link LongestRunOfOnesTest}. A run is carried across updates until a zero or the end of its block.
+ */
+public class LongestRunOfOnesAccumulator implements StreamingSp80022Test {
+    private final LongestRunOfOnesTest test;
+    private final int lengthOfEachBlock;
+    private final long[] frequencies;
+    private long length;
+    private int bitsInBlock;
+    private int currentRun;
+    private int maxRun;
+
+    /**
+     * @param lengthOfEachBlock M, as accepted by {@link LongestRunOfOnesTest#LongestRunOfOnesTest(int)}
+     */
+    public LongestRunOfOnesAccumulator(int lengthOfEachBlock) {
+        this.test = new LongestRunOfOnesTest(lengthOfEachBlock);
+        this.lengthOfEachBlock = lengthOfEachBlock;
+        this.frequencies = new long[test.numberOfClasses()];
+    }
+
+    @Override
+    public String name() {
+        return test.name();
+    }
+
+    @Override
+    public void update(long word, int bits) {
+        length += bits;
+        while (bits > 0) {
+            int take = Math.min(bits, lengthOfEachBlock - bitsInBlock);
+            scan(word, take);
+            if (take < Long.SIZE) {
+                word <<= take;
+            }
+            bits -= take;
+            bitsInBlock += take;
+            if (bitsInBlock == lengthOfEachBlock) {
+                frequencies[test.runClass(maxRun)]++;
+                bitsInBlock = 0;
+                currentRun = 0;
+                maxRun = 0;
+            }
+        }
+    }
+
+    /**
+     * Extends the block's runs with the {@code count} most significant bits of {@code segment}.
+     */
+    private void scan(long segment, int count) {
+        long valid = count == Long.SIZE ? -1L : -1L << (Long.SIZE - count);
+        segment &= valid;
+        if (segment == valid) {
+            currentRun += count;
+            maxRun = Math.max(maxRun, currentRun);
+            return;
+        }
+
+        // the run carried in ends at the first zero
+        maxRun = Math.max(maxRun, currentRun + Long.numberOfLeadingZeros(~segment));
+
+        maxRun = Math.max(maxRun, LongestRunOfOnesTest.longestRun(segment));
+
+        currentRun = Long.numberOfTrailingZeros(~(segment >>> (Long.SIZE - count)));
+    }
+
+    @Override
+    public List<TestResult> finish(double significanceLevel) {
+        return List.of(test.evaluate(frequencies, length, significanceLevel));
+    }
+}
@@ -0,0 +1,243 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Gamma;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 2.4 Test for the Longest Run of Ones in a Block, for any block length M.
+ * <p>
+ * The class probabilities are computed from the distribution of the longest run in M random bits, rather than read
+ * from the tables of 2.4.4 (3), and cached by (K, M). The first class holds the longest runs up to the largest length
+ * that less than a quarter of the blocks stay within, which gives the classes of 2.4.4 (2) for the block lengths
+ * SP 800-22 tabulates. For M = 8 and 128 the probabilities are the tabulated ones; for M = 512, 1000 and 10000 the
+ * tables hold approximations, off by up to 0.009.
+ */
+public class LongestRunOfOnesTest implements Sp80022Test {
+    static final String NAME = "LongestRun";
+    /**
+     * {lengthOfBitString, maximum lengthOfEachBlock} below that length
+     */
+    private static final int[][] PRE_SET_MINIMUM_LENGTH_OF_BIT_STRING_BY_LENGTH_OF_EACH_BLOCK = {
+            {128, 8},
+            {6272, 128},
+            {750000, 10000}
+    };
+    private static final Map<Long, RunClasses> RUN_CLASSES = new ConcurrentHashMap<>();
+    private final int lengthOfEachBlock;
+    private final int k;
+    private final int shortestRunClass;
+    private final double[] probabilities;
+
+    /**
+     * @param lengthOfEachBlock M, with K = 3 below 128, 5 below 10000 and 6 from there, as in 2.4.4 (2)
+     */
+    public LongestRunOfOnesTest(int lengthOfEachBlock) {
+        this(lengthOfEachBlock, defaultK(lengthOfEachBlock));
+    }
+
+    /**
+     * @param lengthOfEachBlock M
+     * @param k                 K, the number of degrees of freedom
+     */
+    public LongestRunOfOnesTest(int lengthOfEachBlock, int k) {
+        if (lengthOfEachBlock < 1) {
+            throw new InvalidParameterException("Invalid block size: " + lengthOfEachBlock);
+        }
+        if (k < 1 || k > lengthOfEachBlock) {
+            throw new InvalidParameterException("Invalid number of degrees of freedom: " + k);
+        }
+        RunClasses runClasses = runClasses(k, lengthOfEachBlock);
+        this.lengthOfEachBlock = lengthOfEachBlock;
+        this.k = k;
+        this.shortestRunClass = runClasses.shortestRunClass();
+        this.probabilities = runClasses.probabilities();
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<TestResult> run(BitSequence sequence, double significanceLevel) {
+        return List.of(evaluate(frequencies(sequence), sequence.length(), significanceLevel));
+    }
+
+    /**
+     * @return nu_0 .. nu_K
+     */
+    long[] frequencies(BitSequence sequence) {
+        long lengthOfBitString = sequence.length();
+        checkLength(lengthOfBitString);
+
+        // 2.4.4 (1) and (2)
+        long nonOverlappingBlocks = lengthOfBitString / lengthOfEachBlock;
+        long[] frequencies = new long[numberOfClasses()];
+        for (long block = 0; block < nonOverlappingBlocks; block++) {
+            int maxRun = longestRunOfOnes(sequence, block * lengthOfEachBlock, lengthOfEachBlock);
+            frequencies[runClass(maxRun)]++;
+        }
+        return frequencies;
+    }
+
+    int numberOfClasses() {
+        return k + 1;
+    }
+
+    /**
+     * @return pi_0 .. pi_K
+     */
+    double[] probabilities() {
+        return probabilities.clone();
+    }
+
+    /**
+     * @return the index of the frequency class a block whose longest run is {@code maxRun} falls in
+     */
+    int runClass(int maxRun) {
+        return Math.min(Math.max(maxRun - shortestRunClass, 0), k);
+    }
+
+    /**
+     * @param frequencies       blocks per {@link #runClass}
+     * @param lengthOfBitString n, including the bits of an incomplete last block
+     */
+    TestResult evaluate(long[] frequencies, long lengthOfBitString, double significanceLevel) {
+        checkLength(lengthOfBitString);
+        return evaluate(frequencies, probabilities, significanceLevel);
+    }
+
+    /**
+     * @param frequencies   nu_0 .. nu_K
+     * @param probabilities pi_0 .. pi_K
+     */
+    static TestResult evaluate(long[] frequencies, double[] probabilities, double significanceLevel) {
+        long nonOverlappingBlocks = Arrays.stream(frequencies).sum();
+        int k = frequencies.length - 1;
+
+        // 2.4.4 (3)
+        double chiSquareStatisticObserved = 0.0;
+        for (int i = 0; i <= k; i++) {
+            double nByProbability = nonOverlappingBlocks * probabilities[i];
+            double divisor = (frequencies[i] - nByProbability) * (frequencies[i] - nByProbability);
+            chiSquareStatisticObserved += divisor / nByProbability;
+        }
+
+        // 2.4.4 (4)
+        double pValue = Gamma.regularizedGammaQ((double) k / 2, chiSquareStatisticObserved / 2);
+        return TestResult.of(NAME, chiSquareStatisticObserved, pValue, significanceLevel);
+    }
+
+    private void checkLength(long lengthOfBitString) {
+        for (int[] preSet : PRE_SET_MINIMUM_LENGTH_OF_BIT_STRING_BY_LENGTH_OF_EACH_BLOCK) {
+            if (lengthOfBitString < preSet[0] && lengthOfEachBlock > preSet[1]) {
+                throw new InvalidParameterException("Random bits has a wrong block size: (lengthOfBitString) "
+                        + lengthOfBitString + "; (lengthOfEachBlock) " + lengthOfEachBlock);
+            }
+        }
+        if (lengthOfBitString < PRE_SET_MINIMUM_LENGTH_OF_BIT_STRING_BY_LENGTH_OF_EACH_BLOCK[0][0]) {
+            throw new InvalidParameterException("Random bits are shorter than "
+                    + PRE_SET_MINIMUM_LENGTH_OF_BIT_STRING_BY_LENGTH_OF_EACH_BLOCK[0][0]);
+        }
+    }
+
+    /**
+     * Scans {@code [from, from + length)} 64 bits at a time: a run carried into a chunk ends at its first zero, and
+     * the longest run inside a chunk is the number of {@code x &= x << 1} steps that clear it.
+     */
+    static int longestRunOfOnes(BitSequence sequence, long from, int length) {
+        int maxRun = 0;
+        int currentRun = 0;
+        for (int i = 0; i < length; i += Long.SIZE) {
+            int count = Math.min(Long.SIZE, length - i);
+            long valid = -1L << (Long.SIZE - count);
+            long chunk = sequence.bits(from + i, count) << (Long.SIZE - count);
+            if (chunk == valid) {
+                currentRun += count;
+                maxRun = Math.max(maxRun, currentRun);
+                continue;
+            }
+            maxRun = Math.max(maxRun, currentRun + Long.numberOfLeadingZeros(~chunk));
+            maxRun = Math.max(maxRun, longestRun(chunk));
+            currentRun = Long.numberOfTrailingZeros(~(chunk >>> (Long.SIZE - count)));
+        }
+        return maxRun;
+    }
+
+    /**
+     * @return the longest run of ones in {@code bits}, each iteration shortening every run by one
+     */
+    static int longestRun(long bits) {
+        int longest = 0;
+        for (; bits != 0; bits &= bits << 1) {
+            longest++;
+        }
+        return longest;
+    }
+
+    private static int defaultK(int m) {
+        if (m < 128) {
+            return 3;
+        }
+        return m < 10000 ? 5 : 6;
+    }
+
+    private static RunClasses runClasses(int k, int m) {
+        return RUN_CLASSES.computeIfAbsent((long) k << 32 | m, key -> RunClasses.of(k, m));
+    }
+
+    /**
+     * @param shortestRunClass the longest run counted by the first class, whose frequency is compared as <=
+     * @param probabilities    the class probabilities, where the first counts runs up to {@code shortestRunClass}
+     *                         and the last at least {@code shortestRunClass + K}
+     */
+    private record RunClasses(int shortestRunClass, double[] probabilities) {
+
+        static RunClasses of(int k, int m) {
+            int shortestRunClass = 0;
+            while (shortestRunClass + 1 < m && atMost(shortestRunClass + 1, m) < 0.25) {
+                shortestRunClass++;
+            }
+            double[] probabilities = new double[k + 1];
+            double previous = atMost(shortestRunClass, m);
+            probabilities[0] = previous;
+            for (int i = 1; i < k; i++) {
+                double next = atMost(shortestRunClass + i, m);
+                probabilities[i] = next - previous;
+                previous = next;
+            }
+            probabilities[k] = 1 - previous;
+            return new RunClasses(shortestRunClass, probabilities);
+        }
+    }
+
+    /**
+     * @return the probability that the longest run of ones in {@code m} random bits is at most {@code run}, from
+     * q_n = q_(n-1) - 2^-(run+2) q_(n-run-2): a string of n bits first gets a run of run + 1 ones when its last run + 1
+     * bits are ones, preceded by a zero and by n - run - 2 bits without such a run
+     */
+    static double atMost(int run, int m) {
+        if (run >= m) {
+            return 1;
+        }
+        int window = run + 2;
+        double[] q = new double[window];
+        Arrays.fill(q, 1);
+        // q_(run+1) = 1 - 2^-(run+1), the all-ones string being the only one excluded
+        double head = Math.scalb(1.0, -(run + 1));
+        double tail = Math.scalb(1.0, -(run + 2));
+        double last = 1 - head;
+        q[(run + 1) % window] = last;
+        for (int n = run + 2; n <= m; n++) {
+            // q_(n-run-2) lies run + 2 entries back, in the slot q_n takes over
+            last = last - tail * q[n % window];
+            q[n % window] = last;
+        }
+        return last;
+    }
+}
@@ -1,10 +1,141 @@
 package br.unicamp.criptografia.hash_drbg;
 
-import java.util.Arrays;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
+/**
+ * Command line generator: streams DRBG output to a file or standard output, see {@link #USAGE}.
+ */
 public class Main {
+    static final String USAGE = """
+            usage: hash_drbg [options]
+              -n, --bytes SIZE       bytes to generate, with an optional K, M or G suffix (default 32)
+              -o, --output FILE      file to write, - for standard output (default)
+              -f, --format FORMAT    raw, hex or bits, the '0'/'1' characters of NIST data files (default hex)
+              -m, --mechanism NAME   hash-sha256, hash-sha512, hmac-sha256, hmac-sha512 or ctr-aes256
+                                     (default hash-sha256)
+              -j, --instances K      generators running in parallel into one ordered output (default 1)
+              -c, --chunk SIZE       bytes per buffer and per turn of a generator (default 1M)
+              -t, --test             run the streaming SP 800-22 battery over the output, at least 13 bytes, report
+                                     to standard error; the exit status is 1 if a test fails
+              -h, --help""";
+
     public static void main(String[] args) {
-        byte[] bouncyCastleRandomBytes = new BouncyCastleHashDRBG("nonce", "personalizationString").generate();
-        System.out.println("bouncyCastleRandomBytes: " + Arrays.toString(bouncyCastleRandomBytes));
+        int status;
+        try (FileOutputStream stdout = new FileOutputStream(FileDescriptor.out)) {
+            status = run(args, stdout.getChannel(), System.err);
+        } catch (IOException e) {
+            System.err.println("hash_drbg: " + e.getMessage());
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    /**
+     * @return the exit status
+     */
+    static int run(String[] args, WritableByteChannel stdout, PrintStream err) throws IOException {
+        long bytes = 32;
+        Path output = null;
+        BulkGenerator.Format format = BulkGenerator.Format.HEX;
+        DrbgMechanism mechanism = DrbgMechanism.HASH_SHA256;
+        int instances = 1;
+        int chunkBytes = BulkGenerator.DEFAULT_CHUNK_BYTES;
+        boolean test = false;
+        BulkGenerator generator;
+        StreamingSp80022Suite suite;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-n", "--bytes" -> bytes = parseSize(value(args, ++i));
+                    case "-o", "--output" -> {
+                        String file = value(args, ++i);
+                        output = file.equals("-") ? null : Path.of(file);
+                    }
+                    case "-f", "--format" ->
+                            format = BulkGenerator.Format.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    case "-m", "--mechanism" -> mechanism = DrbgMechanism.valueOf(
+                            value(args, ++i).toUpperCase(Locale.ROOT).replace('-', '_'));
+                    case "-j", "--instances" -> instances = Integer.parseInt(value(args, ++i));
+                    case "-c", "--chunk" -> chunkBytes = Math.toIntExact(parseSize(value(args, ++i)));
+                    case "-t", "--test" -> test = true;
+                    case "-h", "--help" -> {
+                        err.println(USAGE);
+                        return 0;
+                    }
+                    default -> throw new InvalidParameterException("Unknown option: " + args[i]);
+                }
+            }
+            if (instances <= 0) {
+                throw new InvalidParameterException("Invalid instances: " + instances);
+            }
+            List<Drbg> generators = new ArrayList<>(instances);
+            for (int i = 0; i < instances; i++) {
+                generators.add(new BouncyCastleDRBG(mechanism, CryptoHelper.generateNonce(128),
+                        CryptoHelper.generatePersonalizationString()));
+            }
+            generator = new BulkGenerator(generators, format, chunkBytes);
+            suite = test ? new StreamingSp80022Suite(Math.multiplyExact(Byte.SIZE, bytes)) : null;
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            // InvalidParameterException is an IllegalArgumentException, as is a bad number or name
+            err.println("hash_drbg: " + e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+
+        if (output == null) {
+            generator.write(bytes, stdout, suite);
+        } else {
+            try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                generator.write(bytes, channel, suite);
+            }
+        }
+        if (suite == null) {
+            return 0;
+        }
+
+        boolean passed = true;
+        for (TestResult result : suite.finish()) {
+            err.printf(Locale.ROOT, "%-36s %.6f %s%n", result.name(), result.pValue(),
+                    result.passed() ? "PASS" : "FAIL");
+            passed &= result.passed();
+        }
+        return passed ? 0 : 1;
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new InvalidParameterException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    /**
+     * @param size a number of bytes, with an optional binary K, M or G suffix
+     */
+    static long parseSize(String size) {
+        int last = size.length() - 1;
+        int shift = switch (last < 0 ? ' ' : Character.toUpperCase(size.charAt(last))) {
+            case 'K' -> 10;
+            case 'M' -> 20;
+            case 'G' -> 30;
+            default -> 0;
+        };
+        long value = Long.parseLong(shift == 0 ? size : size.substring(0, last));
+        if (value < 0 || value > Long.MAX_VALUE >> shift) {
+            throw new InvalidParameterException("Invalid size: " + size);
+        }
+        return value << shift;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,154 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Erf;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 2.9 Maurer's "Universal Statistical" Test.
+ * <p>
+ * Blocks are cut from 64-bit chunks holding a whole number of them. The last-occurrence table has 2^L entries, up to
+ * 2^16 ints, so each thread keeps one table sized for the largest L and clears only the 2^L entries a run uses: a
+ * battery of sequences allocates nothing per sequence.
+ */
+public class MaurersUniversalTest implements Sp80022Test {
+    static final String NAME = "Universal";
+    static final int MAX_BLOCK_LENGTH = 16;
+    /**
+     * 2.9.7: the shortest n for L = 6, 7, ..., 16
+     */
+    private static final long[] MINIMUM_LENGTHS = {387_840L, 904_960L, 2_068_480L, 4_654_080L, 10_342_400L,
+            22_753_280L, 49_643_520L, 107_560_960L, 231_669_760L, 496_435_200L, 1_059_061_760L};
+    /**
+     * 2.9.4 (5): expectedValue and variance, indexed by L
+     */
+    private static final double[] EXPECTED_VALUES = {0, 0.7326495, 1.5374383, 2.4016068, 3.3112247, 4.2534266,
+            5.2177052, 6.1962507, 7.1836656, 8.1764248, 9.1723243, 10.170032, 11.168765, 12.168070, 13.167693,
+            14.167488, 15.167379};
+    private static final double[] VARIANCES = {0, 0.690, 1.338, 1.901, 2.358, 2.705, 2.954, 3.125, 3.238, 3.311,
+            3.356, 3.384, 3.401, 3.410, 3.416, 3.419, 3.421};
+    private static final ThreadLocal<int[]> LAST_OCCURRENCES =
+            ThreadLocal.withInitial(() -> new int[1 << MAX_BLOCK_LENGTH]);
+    private final int blockLength;
+    private final int initializationBlocks;
+
+    /**
+     * L and Q = 10 * 2^L picked from the sequence length, as 2.9.7 recommends.
+     */
+    public MaurersUniversalTest() {
+        this.blockLength = 0;
+        this.initializationBlocks = 0;
+    }
+
+    /**
+     * @param blockLength          L, between 1 and 16
+     * @param initializationBlocks Q
+     */
+    public MaurersUniversalTest(int blockLength, int initializationBlocks) {
+        if (blockLength < 1 || blockLength > MAX_BLOCK_LENGTH) {
+            throw new InvalidParameterException("Invalid block length: " + blockLength);
+        }
+        if (initializationBlocks < 1) {
+            throw new InvalidParameterException("Invalid number of initialization blocks: " + initializationBlocks);
+        }
+        this.blockLength = blockLength;
+        this.initializationBlocks = initializationBlocks;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<TestResult> run(BitSequence sequence, double significanceLevel) {
+        long length = sequence.length();
+        int l = blockLength;
+        int q = initializationBlocks;
+        if (l == 0) {
+            l = blockLength(length);
+            if (l == 0) {
+                throw new InvalidParameterException("Random bits are shorter than " + MINIMUM_LENGTHS[0] + ": "
+                        + length);
+            }
+            q = 10 << l;
+        }
+
+        // 2.9.4 (1)
+        long blocks = length / l;
+        long testBlocks = blocks - q;
+        if (testBlocks < 1 || blocks > Integer.MAX_VALUE) {
+            throw new InvalidParameterException("Invalid number of blocks: (length) " + length + "; (blockLength) "
+                    + l + "; (initializationBlocks) " + q);
+        }
+
+        // 2.9.4 (2), (3) and (4)
+        double sum = logDistances(sequence, l, q, (int) blocks);
+        double fn = sum / testBlocks;
+        return List.of(evaluate(fn, l, testBlocks, significanceLevel));
+    }
+
+    /**
+     * @return the sum of log2(i - T_j) over the test segment
+     */
+    private static double logDistances(BitSequence sequence, int blockLength, int initializationBlocks, int blocks) {
+        int[] lastOccurrences = LAST_OCCURRENCES.get();
+        Arrays.fill(lastOccurrences, 0, 1 << blockLength, 0);
+        int blocksPerChunk = Long.SIZE / blockLength;
+        int mask = (1 << blockLength) - 1;
+        double sum = 0;
+        // blocks are numbered from 1, a zero entry meaning the block has not been seen
+        int block = 1;
+        while (block <= blocks) {
+            int count = Math.min(blocksPerChunk, blocks - block + 1);
+            long chunk = sequence.bits((long) (block - 1) * blockLength, count * blockLength);
+            for (int shift = (count - 1) * blockLength; shift >= 0; shift -= blockLength, block++) {
+                int value = (int) (chunk >>> shift) & mask;
+                if (block > initializationBlocks) {
+                    sum += Math.log(block - lastOccurrences[value]);
+                }
+                lastOccurrences[value] = block;
+            }
+        }
+        return sum / Math.log(2);
+    }
+
+    /**
+     * @param fn         the mean of log2 of the distances
+     * @param testBlocks K
+     */
+    static TestResult evaluate(double fn, int blockLength, long testBlocks, double significanceLevel) {
+        // 2.9.4 (5)
+        double c = 0.7 - 0.8 / blockLength
+                + (4 + 32.0 / blockLength) * Math.pow(testBlocks, -3.0 / blockLength) / 15;
+        double sigma = c * Math.sqrt(VARIANCES[blockLength] / testBlocks);
+        double pValue = Erf.erfc(Math.abs((fn - EXPECTED_VALUES[blockLength]) / (Math.sqrt(2) * sigma)));
+        return TestResult.of(NAME, fn, pValue, significanceLevel);
+    }
+
+    /**
+     * 2.9.7
+     *
+     * @return L for a sequence of {@code length} bits, or 0 below the 387,840 bits of L = 6
+     */
+    static int blockLength(long length) {
+        int l = 0;
+        for (int i = 0; i < MINIMUM_LENGTHS.length && length >= MINIMUM_LENGTHS[i]; i++) {
+            l = 6 + i;
+        }
+        return l;
+    }
+
+    /**
+     * @return L, or 0 when it is picked from the sequence length
+     */
+    public int getBlockLength() {
+        return blockLength;
+    }
+
+    public int getInitializationBlocks() {
+        return initializationBlocks;
+    }
+}
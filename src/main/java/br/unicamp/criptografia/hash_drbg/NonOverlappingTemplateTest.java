@@ -0,0 +1,159 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Gamma;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 2.7 Non-overlapping Template Matching Test, for every aperiodic template of length m.
+ * <p>
+ * An aperiodic template cannot overlap itself, so restarting the scan after a match, as 2.7.4 (2) does, never skips
+ * another match: W_j is simply the number of m-bit windows of block j equal to the template. One pass over each
+ * block histograms its window values, and every template reads its count from the histogram.
+ */
+public class NonOverlappingTemplateTest implements Sp80022Test {
+    static final String NAME = "NonOverlappingTemplate";
+    public static final int DEFAULT_TEMPLATE_LENGTH = 9;
+    public static final int DEFAULT_NUMBER_OF_BLOCKS = 8;
+    private final int templateLength;
+    private final int numberOfBlocks;
+    private final int[] templates;
+
+    public NonOverlappingTemplateTest() {
+        this(DEFAULT_TEMPLATE_LENGTH, DEFAULT_NUMBER_OF_BLOCKS);
+    }
+
+    /**
+     * @param templateLength m, between 2 and 21 as in the NIST template files
+     * @param numberOfBlocks N
+     */
+    public NonOverlappingTemplateTest(int templateLength, int numberOfBlocks) {
+        if (templateLength < 2 || templateLength > 21) {
+            throw new InvalidParameterException("Invalid template length: " + templateLength);
+        }
+        if (numberOfBlocks < 1) {
+            throw new InvalidParameterException("Invalid number of blocks: " + numberOfBlocks);
+        }
+        this.templateLength = templateLength;
+        this.numberOfBlocks = numberOfBlocks;
+        this.templates = aperiodicTemplates(templateLength);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * @return one result per template, in increasing template order, named after the template bits
+     */
+    @Override
+    public List<TestResult> run(BitSequence sequence, double significanceLevel) {
+        // 2.7.4 (1)
+        long lengthOfEachBlock = sequence.length() / numberOfBlocks;
+        if (lengthOfEachBlock < templateLength) {
+            throw new InvalidParameterException("Blocks of " + lengthOfEachBlock + " bits are shorter than the "
+                    + templateLength + "-bit templates");
+        }
+
+        // 2.7.4 (2)
+        long[][] matches = new long[templates.length][numberOfBlocks];
+        int[] windows = new int[1 << templateLength];
+        for (int block = 0; block < numberOfBlocks; block++) {
+            Arrays.fill(windows, 0);
+            countWindows(sequence, block * lengthOfEachBlock, lengthOfEachBlock, templateLength, windows);
+            for (int t = 0; t < templates.length; t++) {
+                matches[t][block] = windows[templates[t]];
+            }
+        }
+
+        List<TestResult> results = new ArrayList<>(templates.length);
+        for (int t = 0; t < templates.length; t++) {
+            results.add(evaluate(templateName(templates[t]), matches[t], lengthOfEachBlock, templateLength,
+                    significanceLevel));
+        }
+        return results;
+    }
+
+    static TestResult evaluate(String name, long[] matches, long lengthOfEachBlock, int templateLength,
+                               double significanceLevel) {
+        // 2.7.4 (3)
+        double mean = (lengthOfEachBlock - templateLength + 1) / Math.pow(2, templateLength);
+        double variance = lengthOfEachBlock * (1 / Math.pow(2, templateLength)
+                - (2.0 * templateLength - 1) / Math.pow(2, 2 * templateLength));
+
+        // 2.7.4 (4)
+        double chiSquareStatisticObserved = 0;
+        for (long observed : matches) {
+            chiSquareStatisticObserved += (observed - mean) * (observed - mean) / variance;
+        }
+
+        // 2.7.4 (5)
+        double pValue = Gamma.regularizedGammaQ(matches.length / 2.0, chiSquareStatisticObserved / 2);
+        return TestResult.of(name, chiSquareStatisticObserved, pValue, significanceLevel);
+    }
+
+    /**
+     * Adds one to {@code windows[v]} for each window of {@code windowLength} bits inside
+     * {@code [from, from + length)} whose value, first bit most significant, is {@code v}. The window slides one bit
+     * at a time in a register, fed 64 bits at a time.
+     */
+    static void countWindows(BitSequence sequence, long from, long length, int windowLength, int[] windows) {
+        int mask = (1 << windowLength) - 1;
+        int window = 0;
+        long end = from + length;
+        long position = from;
+        int primed = 0;
+        while (position < end) {
+            int count = (int) Math.min(Long.SIZE, end - position);
+            long chunk = sequence.bits(position, count) << (Long.SIZE - count);
+            for (int i = 0; i < count; i++) {
+                window = (window << 1 | (int) (chunk >>> 63)) & mask;
+                chunk <<= 1;
+                if (primed < windowLength - 1) {
+                    primed++;
+                } else {
+                    windows[window]++;
+                }
+            }
+            position += count;
+        }
+    }
+
+    /**
+     * @return the m-bit values none of whose proper prefixes is also a suffix, that is, which cannot overlap a shifted
+     * copy of themselves, in increasing order
+     */
+    static int[] aperiodicTemplates(int templateLength) {
+        int[] templates = new int[1 << templateLength];
+        int count = 0;
+        for (int template = 0; template < 1 << templateLength; template++) {
+            boolean aperiodic = true;
+            for (int overlap = 1; overlap < templateLength && aperiodic; overlap++) {
+                int prefix = template >>> (templateLength - overlap);
+                int suffix = template & ((1 << overlap) - 1);
+                aperiodic = prefix != suffix;
+            }
+            if (aperiodic) {
+                templates[count++] = template;
+            }
+        }
+        return Arrays.copyOf(templates, count);
+    }
+
+    private String templateName(int template) {
+        String bits = Integer.toBinaryString(template | 1 << templateLength).substring(1);
+        return NAME + "-" + bits;
+    }
+
+    public int getTemplateLength() {
+        return templateLength;
+    }
+
+    public int getNumberOfBlocks() {
+        return numberOfBlocks;
+    }
+}
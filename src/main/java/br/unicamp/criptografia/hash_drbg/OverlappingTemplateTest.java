@@ -0,0 +1,145 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Gamma;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 2.8 Overlapping Template Matching Test, with the template of m ones.
+ * <p>
+ * The class probabilities are computed exactly, by following the distribution of (trailing ones, matches so far)
+ * through the M bits of a block, rather than from the approximation of 2.8.4 (4). For m = 9 and M = 1032 they are
+ * the values the NIST reference implementation hard-codes.
+ */
+public class OverlappingTemplateTest implements Sp80022Test {
+    static final String NAME = "OverlappingTemplate";
+    public static final int DEFAULT_TEMPLATE_LENGTH = 9;
+    public static final int DEFAULT_BLOCK_LENGTH = 1032;
+    /**
+     * K, the number of degrees of freedom
+     */
+    static final int LAST_CLASS = 5;
+    private final int templateLength;
+    private final int lengthOfEachBlock;
+    private final double[] probabilities;
+
+    public OverlappingTemplateTest() {
+        this(DEFAULT_TEMPLATE_LENGTH, DEFAULT_BLOCK_LENGTH);
+    }
+
+    /**
+     * @param templateLength    m, at most 16
+     * @param lengthOfEachBlock M
+     */
+    public OverlappingTemplateTest(int templateLength, int lengthOfEachBlock) {
+        if (templateLength < 1 || templateLength > 16) {
+            throw new InvalidParameterException("Invalid template length: " + templateLength);
+        }
+        if (lengthOfEachBlock < templateLength) {
+            throw new InvalidParameterException("Invalid block size: " + lengthOfEachBlock);
+        }
+        this.templateLength = templateLength;
+        this.lengthOfEachBlock = lengthOfEachBlock;
+        this.probabilities = probabilities(templateLength, lengthOfEachBlock, LAST_CLASS);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<TestResult> run(BitSequence sequence, double significanceLevel) {
+        return List.of(evaluate(frequencies(sequence), probabilities, significanceLevel));
+    }
+
+    /**
+     * @return nu_0 .. nu_K
+     */
+    long[] frequencies(BitSequence sequence) {
+        // 2.8.4 (1)
+        long nonOverlappingBlocks = sequence.length() / lengthOfEachBlock;
+        if (nonOverlappingBlocks == 0) {
+            throw new InvalidParameterException("Random bits are shorter than one block: (length) "
+                    + sequence.length() + "; (lengthOfEachBlock) " + lengthOfEachBlock);
+        }
+
+        // 2.8.4 (2): the all-ones window is the last histogram entry
+        long[] frequencies = new long[LAST_CLASS + 1];
+        int[] windows = new int[1 << templateLength];
+        for (long block = 0; block < nonOverlappingBlocks; block++) {
+            Arrays.fill(windows, 0);
+            NonOverlappingTemplateTest.countWindows(sequence, block * lengthOfEachBlock, lengthOfEachBlock,
+                    templateLength, windows);
+            frequencies[Math.min(windows[windows.length - 1], LAST_CLASS)]++;
+        }
+        return frequencies;
+    }
+
+    /**
+     * @param frequencies   nu_0 .. nu_K, the blocks with that many matches, the last class holding K or more
+     * @param probabilities pi_0 .. pi_K
+     */
+    static TestResult evaluate(long[] frequencies, double[] probabilities, double significanceLevel) {
+        long blocks = Arrays.stream(frequencies).sum();
+
+        // 2.8.4 (5)
+        double chiSquareStatisticObserved = 0;
+        for (int i = 0; i < frequencies.length; i++) {
+            double expected = blocks * probabilities[i];
+            chiSquareStatisticObserved += (frequencies[i] - expected) * (frequencies[i] - expected) / expected;
+        }
+
+        // 2.8.4 (6)
+        double pValue = Gamma.regularizedGammaQ((frequencies.length - 1) / 2.0, chiSquareStatisticObserved / 2);
+        return TestResult.of(NAME, chiSquareStatisticObserved, pValue, significanceLevel);
+    }
+
+    /**
+     * @return the probability that a block of {@code lengthOfEachBlock} random bits has exactly 0, 1, ...,
+     * {@code lastClass - 1} or at least {@code lastClass} overlapping occurrences of {@code templateLength} ones
+     */
+    static double[] probabilities(int templateLength, int lengthOfEachBlock, int lastClass) {
+        // state[run][matches]: run counts trailing ones up to m - 1, a further one being a match
+        double[][] state = new double[templateLength][lastClass + 1];
+        double[][] next = new double[templateLength][lastClass + 1];
+        state[0][0] = 1;
+        for (int bit = 0; bit < lengthOfEachBlock; bit++) {
+            for (double[] row : next) {
+                Arrays.fill(row, 0);
+            }
+            for (int run = 0; run < templateLength; run++) {
+                for (int matches = 0; matches <= lastClass; matches++) {
+                    double half = state[run][matches] / 2;
+                    next[0][matches] += half;
+                    if (run + 1 < templateLength) {
+                        next[run + 1][matches] += half;
+                    } else {
+                        next[run][Math.min(matches + 1, lastClass)] += half;
+                    }
+                }
+            }
+            double[][] swap = state;
+            state = next;
+            next = swap;
+        }
+
+        double[] probabilities = new double[lastClass + 1];
+        for (double[] row : state) {
+            for (int matches = 0; matches <= lastClass; matches++) {
+                probabilities[matches] += row[matches];
+            }
+        }
+        return probabilities;
+    }
+
+    public int getTemplateLength() {
+        return templateLength;
+    }
+
+    public int getLengthOfEachBlock() {
+        return lengthOfEachBlock;
+    }
+}
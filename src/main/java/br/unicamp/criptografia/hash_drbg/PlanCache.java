@@ -0,0 +1,44 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * The most recently used transform plans, up to a fixed count, by length. Plans must be immutable, as every thread
+ * shares them.
+ * <p>
+ * A plan is built outside the lock, so building one may look up another; when two threads build the same length,
+ * both get the plan cached first.
+ */
+final class PlanCache<P> {
+    private final Map<Integer, P> plans;
+    private final IntFunction<P> factory;
+
+    PlanCache(int capacity, IntFunction<P> factory) {
+        this.plans = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, P> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.factory = factory;
+    }
+
+    P get(int length) {
+        P plan;
+        synchronized (plans) {
+            plan = plans.get(length);
+        }
+        if (plan == null) {
+            plan = factory.apply(length);
+            synchronized (plans) {
+                P raced = plans.putIfAbsent(length, plan);
+                if (raced != null) {
+                    plan = raced;
+                }
+            }
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,323 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Erf;
+import org.apache.commons.math3.special.Gamma;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The random walk S_k = X_1 + ... + X_k, X_i = 2 e_i - 1, shared by 2.13 Cumulative Sums, 2.14 Random Excursions and
+ * 2.15 Random Excursions Variant, walked once for all three.
+ * <p>
+ * The walk only needs a step at a time while it is within {@value #NEAR} of zero, where a step can reach a state
+ * the excursion tests count or close a cycle. Further out, a whole byte is one step of its precomputed delta and of
+ * the largest and smallest partial sums inside it, which is all the cumulative sums test needs.
+ * <p>
+ * The cumulative sums extremes include S_0 = 0. The reverse walk's largest excursion is {@code max |S_n - S_k|} over
+ * {@code 0 <= k < n}, and the k = n term is zero, so the extremes of S_0..S_n are enough for both modes.
+ */
+public class RandomWalk implements StreamingSp80022Test {
+    static final String NAME = "RandomWalk";
+    static final String CUMULATIVE_SUMS = "CumulativeSums";
+    static final String RANDOM_EXCURSIONS = "RandomExcursions";
+    static final String RANDOM_EXCURSIONS_VARIANT = "RandomExcursionsVariant";
+    /**
+     * the states x = +-1 .. +-4 of 2.14
+     */
+    static final int EXCURSION_STATES = 4;
+    /**
+     * the states x = +-1 .. +-9 of 2.15
+     */
+    static final int VARIANT_STATES = 9;
+    /**
+     * K: visits to a state within one cycle are counted up to K, the last class holding K or more
+     */
+    static final int LAST_CLASS = 5;
+    /**
+     * From |S| >= NEAR, the eight steps of a byte can neither reach a counted state nor zero.
+     */
+    private static final int NEAR = VARIANT_STATES + 1 + Byte.SIZE;
+    private static final byte[] DELTA = new byte[256];
+    private static final byte[] PREFIX_MAXIMUM = new byte[256];
+    private static final byte[] PREFIX_MINIMUM = new byte[256];
+
+    static {
+        for (int value = 0; value < 256; value++) {
+            int sum = 0;
+            int maximum = Integer.MIN_VALUE;
+            int minimum = Integer.MAX_VALUE;
+            for (int i = Byte.SIZE - 1; i >= 0; i--) {
+                sum += (value >>> i & 1) == 1 ? 1 : -1;
+                maximum = Math.max(maximum, sum);
+                minimum = Math.min(minimum, sum);
+            }
+            DELTA[value] = (byte) sum;
+            PREFIX_MAXIMUM[value] = (byte) maximum;
+            PREFIX_MINIMUM[value] = (byte) minimum;
+        }
+    }
+
+    private long length;
+    private long sum;
+    private long maximum;
+    private long minimum;
+    /**
+     * zeros among S_1..S_n, each closing a cycle
+     */
+    private long closedCycles;
+    /**
+     * visits to x = -4..-1, 1..4 in the current cycle
+     */
+    private final long[] cycleVisits = new long[2 * EXCURSION_STATES];
+    /**
+     * nu_k(x): the closed cycles that visited x = -4..-1, 1..4 exactly k times, k = 0..K
+     */
+    private final long[][] frequencies = new long[2 * EXCURSION_STATES][LAST_CLASS + 1];
+    /**
+     * xi(x): the visits to x = -9..-1, 1..9 over the whole walk
+     */
+    private final long[] visits = new long[2 * VARIANT_STATES];
+
+    /**
+     * Walks the whole sequence, a word at a time.
+     */
+    public static RandomWalk walk(BitSequence sequence) {
+        RandomWalk walk = new RandomWalk();
+        int fullWords = (int) (sequence.length() >>> 6);
+        for (int i = 0; i < fullWords; i++) {
+            walk.update(sequence.word(i), Long.SIZE);
+        }
+        int rest = (int) (sequence.length() & 63);
+        if (rest > 0) {
+            walk.update(sequence.word(fullWords), rest);
+        }
+        return walk;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void update(long word, int bits) {
+        int i = 0;
+        for (; i + Byte.SIZE <= bits; i += Byte.SIZE) {
+            int value = (int) (word >>> (Long.SIZE - Byte.SIZE - i)) & 0xFF;
+            if (sum >= NEAR || sum <= -NEAR) {
+                maximum = Math.max(maximum, sum + PREFIX_MAXIMUM[value]);
+                minimum = Math.min(minimum, sum + PREFIX_MINIMUM[value]);
+                sum += DELTA[value];
+            } else {
+                for (int bit = Byte.SIZE - 1; bit >= 0; bit--) {
+                    step(value >>> bit & 1);
+                }
+            }
+        }
+        for (; i < bits; i++) {
+            step((int) (word >>> (Long.SIZE - 1 - i)) & 1);
+        }
+        length += bits;
+    }
+
+    private void step(int bit) {
+        // 2.13.4 (1) and (2), 2.14.4 (1) and (2)
+        sum += 2 * bit - 1;
+        maximum = Math.max(maximum, sum);
+        minimum = Math.min(minimum, sum);
+        if (sum == 0) {
+            // 2.14.4 (4) and (5)
+            for (int state = 0; state < cycleVisits.length; state++) {
+                frequencies[state][(int) Math.min(cycleVisits[state], LAST_CLASS)]++;
+                cycleVisits[state] = 0;
+            }
+            closedCycles++;
+        } else if (sum >= -VARIANT_STATES && sum <= VARIANT_STATES) {
+            visits[variantIndex((int) sum)]++;
+            if (sum >= -EXCURSION_STATES && sum <= EXCURSION_STATES) {
+                cycleVisits[excursionIndex((int) sum)]++;
+            }
+        }
+    }
+
+    /**
+     * @return the cumulative sums results, then the random excursions and random excursions variant results when the
+     * walk has enough cycles for them
+     */
+    @Override
+    public List<TestResult> finish(double significanceLevel) {
+        List<TestResult> results = new ArrayList<>(cumulativeSums(significanceLevel));
+        results.addAll(randomExcursions(significanceLevel));
+        results.addAll(randomExcursionsVariant(significanceLevel));
+        return results;
+    }
+
+    /**
+     * @return forward and reverse, named {@code CumulativeSums-forward} and {@code CumulativeSums-reverse}
+     */
+    public List<TestResult> cumulativeSums(double significanceLevel) {
+        checkLength();
+
+        // 2.13.4 (3)
+        long forward = Math.max(maximum, -minimum);
+        long reverse = Math.max(sum - minimum, maximum - sum);
+        return List.of(
+                TestResult.of(CUMULATIVE_SUMS + "-forward", forward, cumulativeSumsPValue(length, forward),
+                        significanceLevel),
+                TestResult.of(CUMULATIVE_SUMS + "-reverse", reverse, cumulativeSumsPValue(length, reverse),
+                        significanceLevel));
+    }
+
+    /**
+     * @return one result per state x = -4..-1, 1..4, named e.g. {@code RandomExcursions-x=+1}, or none when the walk
+     * has too few cycles
+     */
+    public List<TestResult> randomExcursions(double significanceLevel) {
+        checkLength();
+        long cycles = cycles();
+        if (!hasEnoughCycles(cycles)) {
+            return List.of();
+        }
+        List<TestResult> results = new ArrayList<>(2 * EXCURSION_STATES);
+        for (int x = -EXCURSION_STATES; x <= EXCURSION_STATES; x++) {
+            if (x != 0) {
+                results.add(randomExcursionsResult(x, frequencies(x), cycles, significanceLevel));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return one result per state x = -9..-1, 1..9, named e.g. {@code RandomExcursionsVariant-x=-9}, or none when
+     * the walk has too few cycles
+     */
+    public List<TestResult> randomExcursionsVariant(double significanceLevel) {
+        checkLength();
+        long cycles = cycles();
+        if (!hasEnoughCycles(cycles)) {
+            return List.of();
+        }
+        List<TestResult> results = new ArrayList<>(2 * VARIANT_STATES);
+        for (int x = -VARIANT_STATES; x <= VARIANT_STATES; x++) {
+            if (x != 0) {
+                results.add(randomExcursionsVariantResult(x, visits(x), cycles, significanceLevel));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 2.14.4 (3): J, the zeros of S_1..S_n plus the final cycle closed by S_(n+1) = 0 when S_n is not zero
+     */
+    public long cycles() {
+        return closedCycles + (sum != 0 ? 1 : 0);
+    }
+
+    /**
+     * @return nu_0(x) .. nu_K(x), counting the final cycle
+     */
+    long[] frequencies(int x) {
+        int state = excursionIndex(x);
+        long[] stateFrequencies = frequencies[state].clone();
+        if (sum != 0) {
+            stateFrequencies[(int) Math.min(cycleVisits[state], LAST_CLASS)]++;
+        }
+        return stateFrequencies;
+    }
+
+    /**
+     * @return xi(x)
+     */
+    long visits(int x) {
+        return visits[variantIndex(x)];
+    }
+
+    /**
+     * 2.14.7 and the NIST reference implementation: J >= max(0.005 sqrt(n), 500)
+     */
+    private boolean hasEnoughCycles(long cycles) {
+        return cycles >= Math.max(0.005 * Math.sqrt(length), 500);
+    }
+
+    private void checkLength() {
+        if (length == 0) {
+            throw new InvalidParameterException("No random bits were consumed");
+        }
+    }
+
+    /**
+     * @param frequencies nu_0(x) .. nu_K(x)
+     */
+    static TestResult randomExcursionsResult(int x, long[] frequencies, long cycles, double significanceLevel) {
+        // 2.14.4 (6)
+        double chiSquareStatisticObserved = 0;
+        for (int k = 0; k <= LAST_CLASS; k++) {
+            double expected = cycles * excursionProbability(x, k);
+            chiSquareStatisticObserved += (frequencies[k] - expected) * (frequencies[k] - expected) / expected;
+        }
+
+        // 2.14.4 (7)
+        double pValue = Gamma.regularizedGammaQ(LAST_CLASS / 2.0, chiSquareStatisticObserved / 2);
+        return TestResult.of(stateName(RANDOM_EXCURSIONS, x), chiSquareStatisticObserved, pValue,
+                significanceLevel);
+    }
+
+    static TestResult randomExcursionsVariantResult(int x, long visits, long cycles, double significanceLevel) {
+        // 2.15.4 (6)
+        double pValue = Erf.erfc(Math.abs(visits - cycles) / Math.sqrt(2.0 * cycles * (4 * Math.abs(x) - 2)));
+        return TestResult.of(stateName(RANDOM_EXCURSIONS_VARIANT, x), visits, pValue, significanceLevel);
+    }
+
+    /**
+     * 2.14.4 (6): the probability that a cycle visits x exactly k times, or at least K times for k = K
+     */
+    static double excursionProbability(int x, int k) {
+        double leave = 1.0 / (2 * Math.abs(x));
+        if (k == 0) {
+            return 1 - leave;
+        }
+        if (k == LAST_CLASS) {
+            return leave * Math.pow(1 - leave, LAST_CLASS - 1);
+        }
+        return leave * leave * Math.pow(1 - leave, k - 1);
+    }
+
+    /**
+     * 2.13.4 (4), with the summation bounds truncated as in the NIST reference implementation
+     *
+     * @param z the largest excursion of the walk
+     */
+    static double cumulativeSumsPValue(long length, long z) {
+        double n = length;
+        double sqrtN = Math.sqrt(n);
+        double sum1 = 0.0;
+        for (long k = (-length / z + 1) / 4; k <= (length / z - 1) / 4; k++) {
+            sum1 += normal((4 * k + 1) * z / sqrtN);
+            sum1 -= normal((4 * k - 1) * z / sqrtN);
+        }
+        double sum2 = 0.0;
+        for (long k = (-length / z - 3) / 4; k <= (length / z - 1) / 4; k++) {
+            sum2 += normal((4 * k + 3) * z / sqrtN);
+            sum2 -= normal((4 * k + 1) * z / sqrtN);
+        }
+        return 1.0 - sum1 + sum2;
+    }
+
+    private static double normal(double x) {
+        return 0.5 * Erf.erfc(-x / Math.sqrt(2));
+    }
+
+    private static String stateName(String test, int x) {
+        return String.format("%s-x=%+d", test, x);
+    }
+
+    private static int excursionIndex(int x) {
+        return x < 0 ? x + EXCURSION_STATES : x + EXCURSION_STATES - 1;
+    }
+
+    private static int variantIndex(int x) {
+        return x < 0 ? x + VARIANT_STATES : x + VARIANT_STATES - 1;
+    }
+}
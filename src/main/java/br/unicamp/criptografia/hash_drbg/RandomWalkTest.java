@@ -0,0 +1,24 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.util.List;
+
+/**
+ * 2.13 Cumulative Sums, 2.14 Random Excursions and 2.15 Random Excursions Variant, from one {@link RandomWalk} over
+ * the sequence.
+ */
+public class RandomWalkTest implements Sp80022Test {
+
+    @Override
+    public String name() {
+        return RandomWalk.NAME;
+    }
+
+    /**
+     * @return see {@link RandomWalk#finish(double)}; the excursion results are left out, as the NIST reference
+     * implementation does, when the walk has fewer than max(0.005 sqrt(n), 500) cycles
+     */
+    @Override
+    public List<TestResult> run(BitSequence sequence, double significanceLevel) {
+        return RandomWalk.walk(sequence).finish(significanceLevel);
+    }
+}
@@ -0,0 +1,89 @@
+package br.unicamp.criptografia.hash_drbg;
+
+/**
+ * In-place DFT of {@code n} real values, keeping the first half of the spectrum: after {@link #transform}, X_k is
+ * {@code data[2k] + i data[2k + 1]} for {@code 0 <= k < n / 2}. The rest is the conjugate mirror image and is not
+ * produced.
+ * <p>
+ * For even {@code n} the input pairs are read as {@code n / 2} complex values and transformed with half the work of
+ * a complex transform, then separated into the spectrum of the even and odd samples. Odd {@code n} transform a
+ * complex copy in a per-thread {@link FftScratch} array. Plans hold only immutable tables; the last
+ * {@value #CACHED_PLANS} lengths used are cached.
+ */
+final class RealFft {
+    private static final int CACHED_PLANS = 8;
+    private static final PlanCache<RealFft> PLANS = new PlanCache<>(CACHED_PLANS, RealFft::new);
+    private final int length;
+    private final Fft complex;
+    /**
+     * exp(-2 pi i k / n), for even n
+     */
+    private final Fft.Twiddles twiddles;
+
+    private RealFft(int length) {
+        this.length = length;
+        if (length % 2 == 0) {
+            complex = Fft.forLength(length / 2);
+            twiddles = new Fft.Twiddles(length);
+        } else {
+            complex = Fft.forLength(length);
+            twiddles = null;
+        }
+    }
+
+    static RealFft forLength(int length) {
+        if (length < 2) {
+            throw new IllegalArgumentException("Real FFT length must be at least 2: " + length);
+        }
+        return PLANS.get(length);
+    }
+
+    /**
+     * Replaces {@code data[0, n)} by X_0 .. X_(n/2 - 1), interleaved; for odd {@code n}, {@code data[n - 1]} is left
+     * undefined.
+     */
+    void transform(double[] data) {
+        if (twiddles == null) {
+            transformOdd(data);
+            return;
+        }
+
+        // z_j = x_2j + i x_2j+1, Z = DFT(z)
+        complex.transform(data);
+
+        // X_k = E_k + W^k O_k and X_(h-k) = conj(E_k - W^k O_k), with h = n / 2, W = exp(-2 pi i / n),
+        // E_k = (Z_k + conj(Z_(h-k))) / 2 and O_k = (Z_k - conj(Z_(h-k))) / 2i
+        int half = length / 2;
+        data[0] += data[1];
+        data[1] = 0;
+        for (int k = 1; 2 * k <= half; k++) {
+            int m = half - k;
+            double a = data[2 * k];
+            double b = data[2 * k + 1];
+            double c = data[2 * m];
+            double d = data[2 * m + 1];
+            double er = (a + c) / 2;
+            double ei = (b - d) / 2;
+            double or = (b + d) / 2;
+            double oi = (c - a) / 2;
+            double wr = twiddles.re(k);
+            double wi = twiddles.im(k);
+            double pr = wr * or - wi * oi;
+            double pi = wr * oi + wi * or;
+            data[2 * k] = er + pr;
+            data[2 * k + 1] = ei + pi;
+            data[2 * m] = er - pr;
+            data[2 * m + 1] = pi - ei;
+        }
+    }
+
+    private void transformOdd(double[] data) {
+        double[] work = FftScratch.get(FftScratch.REAL, 2 * length);
+        for (int j = 0; j < length; j++) {
+            work[2 * j] = data[j];
+            work[2 * j + 1] = 0;
+        }
+        complex.transform(work);
+        System.arraycopy(work, 0, data, 0, length - 1);
+    }
+}
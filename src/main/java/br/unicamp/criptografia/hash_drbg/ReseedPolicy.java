@@ -0,0 +1,111 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.security.InvalidParameterException;
+import java.time.Duration;
+
+/**
+ * When {@link BouncyCastleDRBG} reseeds, trading fresh entropy for throughput.
+ * <p>
+ * Requests are the requests made to the DRBG, at most {@link BouncyCastleDRBG#MAX_BYTES_PER_REQUEST} bytes each.
+ * Apart from {@link #everyRequest()}, whose reseed is part of each request, a policy is a budget of bytes, requests or
+ * time: once three quarters of it are used, the generator reseeds in the background, and a request that would
+ * overrun it reseeds first. Whatever the policy, the DRBG also reseeds when its own reseed interval runs out.
+ */
+public final class ReseedPolicy {
+    private static final ReseedPolicy EVERY_REQUEST = new ReseedPolicy(Kind.EVERY_REQUEST, 0);
+    private static final ReseedPolicy WHEN_EXHAUSTED = new ReseedPolicy(Kind.WHEN_EXHAUSTED, 0);
+    private final Kind kind;
+    private final long limit;
+
+    private enum Kind {
+        EVERY_REQUEST, BYTES, REQUESTS, INTERVAL, WHEN_EXHAUSTED
+    }
+
+    private ReseedPolicy(Kind kind, long limit) {
+        this.kind = kind;
+        this.limit = limit;
+    }
+
+    /**
+     * Prediction resistance: every request reseeds before it generates.
+     */
+    public static ReseedPolicy everyRequest() {
+        return EVERY_REQUEST;
+    }
+
+    /**
+     * @param bytes the most output between two reseeds, at least one request's worth being allowed
+     */
+    public static ReseedPolicy afterBytes(long bytes) {
+        return new ReseedPolicy(Kind.BYTES, positive(bytes, "bytes"));
+    }
+
+    /**
+     * @param requests the most requests between two reseeds
+     */
+    public static ReseedPolicy afterRequests(long requests) {
+        return new ReseedPolicy(Kind.REQUESTS, positive(requests, "requests"));
+    }
+
+    /**
+     * No output is generated from a seed older than {@code interval}; an idle generator reseeds on its next request.
+     */
+    public static ReseedPolicy every(Duration interval) {
+        return new ReseedPolicy(Kind.INTERVAL, positive(interval.toNanos(), "interval"));
+    }
+
+    /**
+     * Reseeds only when the DRBG's reseed interval runs out, 2^47 requests for Bouncy Castle's mechanisms.
+     */
+    public static ReseedPolicy whenExhausted() {
+        return WHEN_EXHAUSTED;
+    }
+
+    boolean isPredictionResistant() {
+        return kind == Kind.EVERY_REQUEST;
+    }
+
+    /**
+     * @param requestBytes the size of the request about to be made
+     * @return whether the request must wait for a reseed
+     */
+    boolean isDue(long bytes, long requests, long nanos, int requestBytes) {
+        return switch (kind) {
+            case BYTES -> bytes > 0 && bytes + requestBytes > limit;
+            case REQUESTS -> requests >= limit;
+            case INTERVAL -> nanos >= limit;
+            case EVERY_REQUEST, WHEN_EXHAUSTED -> false;
+        };
+    }
+
+    /**
+     * @return whether three quarters of the budget are used, time for a background reseed
+     */
+    boolean isNearlyDue(long bytes, long requests, long nanos) {
+        long mark = limit - limit / 4;
+        return switch (kind) {
+            case BYTES -> bytes >= mark;
+            case REQUESTS -> requests >= mark;
+            case INTERVAL -> nanos >= mark;
+            case EVERY_REQUEST, WHEN_EXHAUSTED -> false;
+        };
+    }
+
+    private static long positive(long value, String name) {
+        if (value <= 0) {
+            throw new InvalidParameterException("Invalid reseed " + name + ": " + value);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case EVERY_REQUEST -> "every request";
+            case BYTES -> "after " + limit + " bytes";
+            case REQUESTS -> "after " + limit + " requests";
+            case INTERVAL -> "every " + Duration.ofNanos(limit);
+            case WHEN_EXHAUSTED -> "when exhausted";
+        };
+    }
+}
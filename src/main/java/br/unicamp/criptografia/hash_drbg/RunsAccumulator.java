@@ -0,0 +1,38 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.util.List;
+
+/**
+ * Streaming {@link RunsTest}. The last bit of each update is kept to count the transition into the next one.
+ */
+public class RunsAccumulator implements StreamingSp80022Test {
+    private long length;
+    private long ones;
+    private long transitions;
+    private long lastBit;
+
+    @Override
+    public String name() {
+        return RunsTest.NAME;
+    }
+
+    @Override
+    public void update(long word, int bits) {
+        if (length > 0) {
+            transitions += lastBit ^ (word >>> 63);
+        }
+        if (bits > 1) {
+            // bit k differs from bit k + 1; only the first bits - 1 pairs lie inside this word
+            long differences = (word ^ (word << 1)) & (-1L << (Long.SIZE - bits + 1));
+            transitions += Long.bitCount(differences);
+        }
+        ones += Long.bitCount(word);
+        lastBit = (word >>> (Long.SIZE - bits)) & 1;
+        length += bits;
+    }
+
+    @Override
+    public List<TestResult> finish(double significanceLevel) {
+        return List.of(RunsTest.evaluate(ones, transitions, length, significanceLevel));
+    }
+}
@@ -0,0 +1,49 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Erf;
+
+import java.util.List;
+
+/**
+ * 2.3 Runs Test.
+ */
+public class RunsTest implements Sp80022Test {
+    static final String NAME = "Runs";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<TestResult> run(BitSequence sequence, double significanceLevel) {
+        return List.of(evaluate(sequence.bitCount(), transitions(sequence), sequence.length(), significanceLevel));
+    }
+
+    static TestResult evaluate(long ones, long transitions, long length, double significanceLevel) {
+        // 2.3.4 (1)
+        double preTestProportion = (double) ones / length;
+
+        // 2.3.4 (2): the test is not run when the frequency prerequisite fails
+        double frequencyTestPrerequisite = 2 / Math.sqrt(length);
+        if (Math.abs(preTestProportion - 0.5) >= frequencyTestPrerequisite) {
+            return TestResult.of(NAME, Double.NaN, 0.0, significanceLevel);
+        }
+
+        // 2.3.4 (3)
+        long testStatisticValue = transitions + 1;
+
+        // 2.3.4 (4)
+        double divisor = Math.abs(testStatisticValue - 2 * length * preTestProportion * (1 - preTestProportion));
+        double dividend = 2 * Math.sqrt(2 * length) * preTestProportion * (1 - preTestProportion);
+        double pValue = Erf.erfc(divisor / dividend);
+        return TestResult.of(NAME, testStatisticValue, pValue, significanceLevel);
+    }
+
+    /**
+     * @return the positions k where bit k differs from bit k + 1, see {@link BitSequence#transitions()}
+     */
+    static long transitions(BitSequence sequence) {
+        return sequence.transitions();
+    }
+}
@@ -0,0 +1,120 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Gamma;
+
+import java.security.InvalidParameterException;
+import java.util.List;
+
+/**
+ * 2.11 Serial Test.
+ * <p>
+ * The counts of every overlapping pattern, wrapping around the end of the sequence, are kept in a {@code long[]}
+ * indexed by pattern value. Only the m-bit table is counted: the first m - 1 bits of a window at position i are the
+ * (m - 1)-bit window at i, so that table is the m-bit one with pairs of entries added, see {@link #fold(long[])}.
+ */
+public class SerialTest implements Sp80022Test {
+    static final String NAME = "Serial";
+    static final int MAX_PATTERN_LENGTH = 30;
+    private final int patternLength;
+
+    /**
+     * @param patternLength m, with m < log2(n) - 2 as 2.11.7 recommends
+     */
+    public SerialTest(int patternLength) {
+        if (patternLength < 2 || patternLength > MAX_PATTERN_LENGTH) {
+            throw new InvalidParameterException("Invalid pattern length: " + patternLength);
+        }
+        this.patternLength = patternLength;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * @return P-value1 and P-value2, named {@code Serial-1} and {@code Serial-2}
+     */
+    @Override
+    public List<TestResult> run(BitSequence sequence, double significanceLevel) {
+        long length = sequence.length();
+
+        // 2.11.4 (1) and (2)
+        long[] counts = patternCounts(sequence, patternLength);
+        double psiSquared = psiSquared(counts, length);
+        counts = fold(counts);
+        double psiSquaredMinus1 = psiSquared(counts, length);
+        counts = fold(counts);
+        double psiSquaredMinus2 = patternLength > 2 ? psiSquared(counts, length) : 0;
+
+        // 2.11.4 (4)
+        double delta = psiSquared - psiSquaredMinus1;
+        double delta2 = psiSquared - 2 * psiSquaredMinus1 + psiSquaredMinus2;
+
+        // 2.11.4 (5)
+        double pValue1 = Gamma.regularizedGammaQ(Math.pow(2, patternLength - 2), delta / 2);
+        double pValue2 = Gamma.regularizedGammaQ(Math.pow(2, patternLength - 3), delta2 / 2);
+        return List.of(
+                TestResult.of(NAME + "-1", delta, pValue1, significanceLevel),
+                TestResult.of(NAME + "-2", delta2, pValue2, significanceLevel));
+    }
+
+    /**
+     * 2.11.4 (3): psi^2 = 2^m / n sum nu^2 - n
+     */
+    static double psiSquared(long[] counts, long length) {
+        double sum = 0;
+        for (long count : counts) {
+            sum += (double) count * count;
+        }
+        return counts.length * sum / length - length;
+    }
+
+    /**
+     * Counts the n overlapping {@code patternLength}-bit windows of the sequence extended by its first
+     * {@code patternLength - 1} bits, in one pass of a window kept in a register.
+     *
+     * @return the count of each pattern, indexed by its value, first bit most significant
+     */
+    static long[] patternCounts(BitSequence sequence, int patternLength) {
+        long length = sequence.length();
+        if (length < patternLength) {
+            throw new InvalidParameterException("Random bits are shorter than the " + patternLength
+                    + "-bit patterns: " + length);
+        }
+        long[] counts = new long[1 << patternLength];
+        int mask = (1 << patternLength) - 1;
+        int window = 0;
+        long end = length + patternLength - 1;
+        for (long position = 0; position < end; ) {
+            long from = position < length ? position : position - length;
+            int count = (int) Math.min(Long.SIZE, Math.min(end - position, length - from));
+            long chunk = sequence.bits(from, count) << (Long.SIZE - count);
+            for (int i = 0; i < count; i++) {
+                window = (window << 1 | (int) (chunk >>> 63)) & mask;
+                chunk <<= 1;
+                if (position + i >= patternLength - 1) {
+                    counts[window]++;
+                }
+            }
+            position += count;
+        }
+        return counts;
+    }
+
+    /**
+     * @param counts the wrapped m-bit pattern counts, m >= 1
+     * @return the wrapped (m - 1)-bit pattern counts
+     */
+    static long[] fold(long[] counts) {
+        long[] folded = new long[counts.length / 2];
+        for (int pattern = 0; pattern < folded.length; pattern++) {
+            folded[pattern] = counts[2 * pattern] + counts[2 * pattern + 1];
+        }
+        return folded;
+    }
+
+    public int getPatternLength() {
+        return patternLength;
+    }
+}
@@ -0,0 +1,131 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the NIST SP 800-22 battery against a {@link BitSequence}.
+ * <p>
+ * {@link #defaultTests(long)} picks, for a given sequence length, the tests that length qualifies for and the
+ * parameters SP 800-22 recommends for it.
+ */
+public class Sp80022Suite {
+    public static final double DEFAULT_SIGNIFICANCE_LEVEL = 0.01;
+    private final double significanceLevel;
+
+    public Sp80022Suite() {
+        this(DEFAULT_SIGNIFICANCE_LEVEL);
+    }
+
+    public Sp80022Suite(double significanceLevel) {
+        this.significanceLevel = significanceLevel;
+    }
+
+    public double getSignificanceLevel() {
+        return significanceLevel;
+    }
+
+    public List<TestResult> run(BitSequence sequence) {
+        return run(sequence, defaultTests(sequence.length()));
+    }
+
+    public List<TestResult> run(BitSequence sequence, List<? extends Sp80022Test> tests) {
+        List<TestResult> results = new ArrayList<>();
+        for (Sp80022Test test : tests) {
+            DrbgEvents.TestRun event = new DrbgEvents.TestRun();
+            event.begin();
+            long start = DrbgMetrics.start();
+            List<TestResult> testResults = test.run(sequence, significanceLevel);
+            DrbgMetrics.tested(sequence.length(), start);
+            event.commit(test.name(), sequence.length(), testResults);
+            results.addAll(testResults);
+        }
+        return results;
+    }
+
+    public static List<Sp80022Test> defaultTests(long length) {
+        List<Sp80022Test> tests = new ArrayList<>();
+        tests.add(new FrequencyTest());
+        tests.add(new BlockFrequencyTest(getBlockFrequencyBlockSize(length)));
+        tests.add(new RunsTest());
+        if (length >= 128) {
+            tests.add(new LongestRunOfOnesTest(getLongestRunBlockSize(length)));
+        }
+        int matrixSize = BinaryMatrixRankTest.DEFAULT_MATRIX_SIZE;
+        if (length >= BinaryMatrixRankTest.minimumLength(matrixSize, matrixSize)) {
+            tests.add(new BinaryMatrixRankTest());
+        }
+        if (length >= 1000) {
+            tests.add(new DiscreteFourierTransformTest());
+        }
+        // at least five expected matches of each template per block, for W_j to be close to normal
+        if (length / NonOverlappingTemplateTest.DEFAULT_NUMBER_OF_BLOCKS
+                >= 5L << NonOverlappingTemplateTest.DEFAULT_TEMPLATE_LENGTH) {
+            tests.add(new NonOverlappingTemplateTest());
+        }
+        // 2.8.7
+        if (length >= 1_000_000) {
+            tests.add(new OverlappingTemplateTest());
+        }
+        // 2.9.7
+        if (MaurersUniversalTest.blockLength(length) > 0) {
+            tests.add(new MaurersUniversalTest());
+        }
+        // 2.10.7
+        if (length >= 1_000_000) {
+            tests.add(new LinearComplexityTest());
+        }
+        int serialPatternLength = getSerialPatternLength(length);
+        if (serialPatternLength >= 2) {
+            tests.add(new SerialTest(serialPatternLength));
+        }
+        int approximateEntropyBlockLength = getApproximateEntropyBlockLength(length);
+        if (approximateEntropyBlockLength >= 1) {
+            tests.add(new ApproximateEntropyTest(approximateEntropyBlockLength));
+        }
+        // 2.13.7
+        if (length >= 100) {
+            tests.add(new RandomWalkTest());
+        }
+        return tests;
+    }
+
+    /**
+     * 2.2.7: M >= 20, M > 0.01 n and fewer than 100 blocks; 128 is the NIST reference implementation default.
+     */
+    static int getBlockFrequencyBlockSize(long length) {
+        long blockSize = Math.max(128, length / 99 + 1);
+        return (int) Math.min(blockSize, Math.max(length, 1));
+    }
+
+    /**
+     * 2.11.7: m < floor(log2 n) - 2, at most 16 as in the NIST reference implementation defaults
+     */
+    static int getSerialPatternLength(long length) {
+        return Math.min(16, floorLog2(length) - 3);
+    }
+
+    /**
+     * 2.12.7: m < floor(log2 n) - 5, at most 10 as in the NIST reference implementation defaults
+     */
+    static int getApproximateEntropyBlockLength(long length) {
+        return Math.min(10, floorLog2(length) - 6);
+    }
+
+    private static int floorLog2(long length) {
+        return 63 - Long.numberOfLeadingZeros(Math.max(length, 1));
+    }
+
+    /**
+     * 2.4.2
+     */
+    static int getLongestRunBlockSize(long length) {
+        if (length < 6272) {
+            return 8;
+        }
+        if (length < 750000) {
+            return 128;
+        }
+        return 10000;
+    }
+}
@@ -0,0 +1,19 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.security.InvalidParameterException;
+import java.util.List;
+
+/**
+ * One of the NIST SP 800-22 statistical tests, with its parameters fixed at construction.
+ */
+public interface Sp80022Test {
+
+    String name();
+
+    /**
+     * @param significanceLevel the alpha a P-value has to reach for the sequence to be considered random
+     * @return one result per P-value the test reports
+     * @throws InvalidParameterException when the sequence is too short for the test parameters
+     */
+    List<TestResult> run(BitSequence sequence, double significanceLevel);
+}
@@ -0,0 +1,105 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feeds one stream of bits to several {@link StreamingSp80022Test}s, e.g. DRBG output as it is generated, in memory
+ * bounded by the tests' state rather than by the sequence length.
+ */
+public class StreamingSp80022Suite {
+    /**
+     * The shortest sequence, in bits, the default tests accept: 2.1.7, 2.3.7 and 2.13.7 ask for at least 100 bits.
+     */
+    public static final long MINIMUM_LENGTH = 100;
+    private final double significanceLevel;
+    private final List<StreamingSp80022Test> tests;
+    private long bitsFed;
+
+    /**
+     * @param expectedLength the number of bits that will be fed, used to pick the tests and their parameters as
+     *                       {@link Sp80022Suite#defaultTests(long)} does
+     */
+    public StreamingSp80022Suite(long expectedLength) {
+        this(Sp80022Suite.DEFAULT_SIGNIFICANCE_LEVEL, defaultTests(expectedLength));
+    }
+
+    public StreamingSp80022Suite(double significanceLevel, List<? extends StreamingSp80022Test> tests) {
+        this.significanceLevel = significanceLevel;
+        this.tests = List.copyOf(tests);
+    }
+
+    /**
+     * @throws InvalidParameterException if {@code expectedLength} is below {@link #MINIMUM_LENGTH}
+     */
+    public static List<StreamingSp80022Test> defaultTests(long expectedLength) {
+        if (expectedLength < MINIMUM_LENGTH) {
+            throw new InvalidParameterException("Random bits are shorter than the battery's minimum: (length) "
+                    + expectedLength + "; (minimum) " + MINIMUM_LENGTH);
+        }
+        List<StreamingSp80022Test> tests = new ArrayList<>();
+        tests.add(new FrequencyAccumulator());
+        tests.add(new BlockFrequencyAccumulator(Sp80022Suite.getBlockFrequencyBlockSize(expectedLength)));
+        tests.add(new RunsAccumulator());
+        if (expectedLength >= 128) {
+            tests.add(new LongestRunOfOnesAccumulator(Sp80022Suite.getLongestRunBlockSize(expectedLength)));
+        }
+        int matrixSize = BinaryMatrixRankTest.DEFAULT_MATRIX_SIZE;
+        if (expectedLength >= BinaryMatrixRankTest.minimumLength(matrixSize, matrixSize)) {
+            tests.add(new BinaryMatrixRankAccumulator());
+        }
+        tests.add(new RandomWalk());
+        return tests;
+    }
+
+    public void update(byte[] chunk) {
+        update(chunk, 0, chunk.length);
+    }
+
+    public void update(byte[] chunk, int offset, int length) {
+        for (StreamingSp80022Test test : tests) {
+            test.update(chunk, offset, length);
+        }
+        bitsFed += (long) Byte.SIZE * length;
+    }
+
+    /**
+     * Consumes the remaining bytes of {@code chunk}, each most significant bit first, without moving its position.
+     */
+    public void update(ByteBuffer chunk) {
+        int from = chunk.position();
+        int end = chunk.limit();
+        ByteBuffer bigEndian = chunk.duplicate().order(ByteOrder.BIG_ENDIAN);
+        for (StreamingSp80022Test test : tests) {
+            int i = from;
+            for (; end - i >= Long.BYTES; i += Long.BYTES) {
+                test.update(bigEndian.getLong(i), Long.SIZE);
+            }
+            if (i < end) {
+                long word = 0;
+                for (int j = i; j < end; j++) {
+                    word |= (bigEndian.get(j) & 0xFFL) << (56 - 8 * (j - i));
+                }
+                test.update(word, Byte.SIZE * (end - i));
+            }
+        }
+        bitsFed += (long) Byte.SIZE * (end - from);
+    }
+
+    public List<TestResult> finish() {
+        List<TestResult> results = new ArrayList<>();
+        for (StreamingSp80022Test test : tests) {
+            DrbgEvents.TestRun event = new DrbgEvents.TestRun();
+            event.begin();
+            long start = DrbgMetrics.start();
+            List<TestResult> testResults = test.finish(significanceLevel);
+            DrbgMetrics.tested(bitsFed, start);
+            event.commit(test.name(), bitsFed, testResults);
+            results.addAll(testResults);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,48 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.security.InvalidParameterException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Incremental form of an SP 800-22 test: the sequence is fed in chunks and only the running statistic is kept, so
+ * memory does not grow with the sequence length. Chunk boundaries do not affect the result: runs and blocks that
+ * span two chunks are counted as if the input were contiguous.
+ */
+public interface StreamingSp80022Test {
+
+    String name();
+
+    default void update(byte[] chunk) {
+        update(chunk, 0, chunk.length);
+    }
+
+    /**
+     * Consumes the {@code 8 * length} bits of {@code chunk[offset, offset + length)}, each byte most significant bit
+     * first.
+     */
+    default void update(byte[] chunk, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, chunk.length);
+        int end = offset + length;
+        for (; end - offset >= Long.BYTES; offset += Long.BYTES) {
+            update(BitSequence.readWord(chunk, offset), Long.SIZE);
+        }
+        if (offset < end) {
+            update(BitSequence.readPartialWord(chunk, offset, end - offset), Byte.SIZE * (end - offset));
+        }
+    }
+
+    /**
+     * Consumes the {@code bits} most significant bits of {@code word}.
+     *
+     * @param word its other {@code 64 - bits} bits must be zero
+     * @param bits between 1 and 64
+     */
+    void update(long word, int bits);
+
+    /**
+     * @return one result per P-value the test reports, over every bit consumed so far
+     * @throws InvalidParameterException when fewer bits than the test needs were consumed
+     */
+    List<TestResult> finish(double significanceLevel);
+}
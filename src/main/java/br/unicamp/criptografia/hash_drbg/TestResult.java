@@ -0,0 +1,16 @@
+package br.unicamp.criptografia.hash_drbg;
+
+/**
+ * Outcome of one SP 800-22 P-value computation.
+ *
+ * @param name      test name, qualified with its parameters when a test reports several P-values
+ * @param statistic the test statistic the P-value was derived from (e.g. chi-square)
+ * @param pValue    probability that a perfect generator produces a less random sequence
+ * @param passed    whether {@code pValue} is at least the significance level the test ran with
+ */
+public record TestResult(String name, double statistic, double pValue, boolean passed) {
+
+    static TestResult of(String name, double statistic, double pValue, double significanceLevel) {
+        return new TestResult(name, statistic, pValue, pValue >= significanceLevel);
+    }
+}
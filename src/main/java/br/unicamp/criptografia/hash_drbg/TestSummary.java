@@ -0,0 +1,25 @@
+package br.unicamp.criptografia.hash_drbg;
+
+/**
+ * SP 800-22 section 4.2 interpretation of one test over many sequences.
+ *
+ * @param name                   test name, as in {@link TestResult#name()}
+ * @param sequences              number of sequences the test reported a P-value for
+ * @param passed                 number of those whose P-value reached the significance level
+ * @param proportionAcceptable   whether {@code passed / sequences} lies in the 4.2.1 confidence interval
+ * @param histogram              P-values counted in ten bins of width 0.1
+ * @param uniformityStatistic    chi-square of the histogram against the uniform distribution (4.2.2)
+ * @param uniformityPValue       P-value of that chi-square; below 0.0001 the P-values are not uniform
+ */
+public record TestSummary(String name, int sequences, int passed, boolean proportionAcceptable, int[] histogram,
+                          double uniformityStatistic, double uniformityPValue) {
+    public static final double UNIFORMITY_SIGNIFICANCE_LEVEL = 0.0001;
+
+    public double proportion() {
+        return (double) passed / sequences;
+    }
+
+    public boolean uniform() {
+        return uniformityPValue >= UNIFORMITY_SIGNIFICANCE_LEVEL;
+    }
+}
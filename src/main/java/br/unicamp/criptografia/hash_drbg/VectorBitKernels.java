@@ -0,0 +1,47 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link BitKernels} over the preferred {@code LongVector} species: per-lane population counts are summed in a vector
+ * and reduced once, and the transitions of lane i read the first bit of its successor from a second load shifted by
+ * one word. Only {@link BitKernels} refers to this class, by name, so that nothing else needs the incubator module.
+ */
+final class VectorBitKernels implements BitKernels.Kernels {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public long bitCount(long[] words, int from, int to) {
+        LongVector sums = LongVector.zero(SPECIES);
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            sums = sums.add(LongVector.fromArray(SPECIES, words, i).lanewise(VectorOperators.BIT_COUNT));
+        }
+        long ones = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            ones += Long.bitCount(words[i]);
+        }
+        return ones;
+    }
+
+    @Override
+    public long transitions(long[] words, int from, int to) {
+        LongVector sums = LongVector.zero(SPECIES);
+        int i = from;
+        // the shifted load of the last vector reads up to words[to - 1]
+        for (int bound = from + SPECIES.loopBound(to - 1 - from); i < bound; i += SPECIES.length()) {
+            LongVector word = LongVector.fromArray(SPECIES, words, i);
+            LongVector next = LongVector.fromArray(SPECIES, words, i + 1);
+            LongVector shifted = word.lanewise(VectorOperators.LSHL, 1)
+                    .or(next.lanewise(VectorOperators.LSHR, 63));
+            sums = sums.add(word.lanewise(VectorOperators.XOR, shifted).lanewise(VectorOperators.BIT_COUNT));
+        }
+        long transitions = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < to - 1; i++) {
+            transitions += Long.bitCount(words[i] ^ (words[i] << 1 | words[i + 1] >>> 63));
+        }
+        return transitions;
+    }
+}
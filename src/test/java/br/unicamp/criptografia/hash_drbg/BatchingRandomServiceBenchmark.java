@@ -0,0 +1,76 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of {@value #BURST} small requests, each a generate call of its own or all through a
+ * {@link BatchingRandomService}.
+ * <p>
+ * {@code mvn -P benchmark verify -Dbenchmark=BatchingRandomServiceBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchingRandomServiceBenchmark {
+    private static final int BURST = 64;
+
+    @Param({"16", "64"})
+    public int requestBytes;
+
+    @Param({"0", "100"})
+    public int windowMicros;
+
+    private BouncyCastleHashDRBG drbg;
+    private BatchingRandomService service;
+    private final CompletableFuture<?>[] results = new CompletableFuture<?>[BURST];
+
+    @Setup
+    public void setup() {
+        drbg = new BouncyCastleHashDRBG(CryptoHelper.generateNonce(128), CryptoHelper.generatePersonalizationString());
+        service = new BatchingRandomService(
+                new BouncyCastleHashDRBG(CryptoHelper.generateNonce(128), CryptoHelper.generatePersonalizationString()),
+                BatchingRandomService.DEFAULT_MAX_BATCH_BYTES, Duration.ofNanos(windowMicros * 1000L),
+                BatchingRandomService.DEFAULT_QUEUE_CAPACITY);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark
+    public byte[] perRequest() {
+        byte[] output = null;
+        for (int i = 0; i < BURST; i++) {
+            output = new byte[requestBytes];
+            drbg.generate(output, 0, output.length);
+        }
+        return output;
+    }
+
+    @Benchmark
+    public Object batched() {
+        for (int i = 0; i < BURST; i++) {
+            results[i] = service.generate(requestBytes);
+        }
+        return CompletableFuture.allOf(results).join();
+    }
+}
@@ -0,0 +1,99 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchingRandomServiceTest {
+
+    @Test
+    public void concurrent_requests_share_batches() {
+        List<CompletableFuture<byte[]>> results = new ArrayList<>();
+        try (BatchingRandomService service = new BatchingRandomService(newDrbg(), 1024, Duration.ofMillis(5), 64);
+             ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 1000; i++) {
+                int length = 1 + i % 32;
+                results.add(CompletableFuture.supplyAsync(() -> service.generate(length), callers)
+                        .thenCompose(result -> result));
+            }
+
+            Set<String> outputs = new HashSet<>();
+            for (int i = 0; i < results.size(); i++) {
+                byte[] output = results.get(i).join();
+                assertEquals(1 + i % 32, output.length);
+                if (output.length >= 8) {
+                    assertTrue(outputs.add(HexFormat.of().formatHex(output)));
+                }
+            }
+            assertEquals(1000, service.getRequests());
+            assertThat(service.getBatches(), lessThan(1000L / 4));
+        }
+    }
+
+    @Test
+    public void requests_larger_than_a_batch_are_served_alone() {
+        try (BatchingRandomService service = new BatchingRandomService(newDrbg(), 64, Duration.ZERO, 4)) {
+            CompletableFuture<byte[]> small = service.generate(16);
+            CompletableFuture<byte[]> large = service.generate(1000);
+
+            assertEquals(16, small.join().length);
+            assertEquals(1000, large.join().length);
+        }
+    }
+
+    @Test
+    public void close_serves_queued_requests() {
+        BatchingRandomService service = new BatchingRandomService(newDrbg(), 256, Duration.ofSeconds(10), 16);
+        List<CompletableFuture<byte[]>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(service.generate(32));
+        }
+
+        service.close();
+
+        for (CompletableFuture<byte[]> result : results) {
+            assertEquals(32, result.join().length);
+        }
+    }
+
+    @Test
+    public void closed_service_fails_requests() {
+        BatchingRandomService service = new BatchingRandomService(newDrbg());
+        service.close();
+
+        try {
+            service.generate(16).join();
+            fail();
+        } catch (CompletionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void rejects_empty_requests() {
+        try (BatchingRandomService service = new BatchingRandomService(newDrbg())) {
+            service.generate(0);
+        }
+    }
+
+    private static BouncyCastleHashDRBG newDrbg() {
+        return new BouncyCastleHashDRBG(CryptoHelper.generateNonce(128), CryptoHelper.generatePersonalizationString());
+    }
+}
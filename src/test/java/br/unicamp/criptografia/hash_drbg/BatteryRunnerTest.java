@@ -0,0 +1,81 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatteryRunnerTest {
+    private static final double ALPHA = Sp80022Suite.DEFAULT_SIGNIFICANCE_LEVEL;
+
+    @Test
+    public void summarize_uniform_P_values() {
+        List<TestResult> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            double pValue = (i % 10) / 10.0 + 0.05;
+            results.add(TestResult.of("Frequency", 0, pValue, ALPHA));
+        }
+
+        TestSummary summary = BatteryRunner.summarize("Frequency", results, ALPHA);
+
+        assertEquals(100, summary.passed());
+        assertArrayEquals(new int[]{10, 10, 10, 10, 10, 10, 10, 10, 10, 10}, summary.histogram());
+        assertEquals(0.0, summary.uniformityStatistic(), 0.0);
+        assertEquals(1.0, summary.uniformityPValue(), 1e-12);
+        assertTrue(summary.uniform());
+        assertTrue(summary.proportionAcceptable());
+    }
+
+    @Test
+    public void summarize_skewed_P_values() {
+        List<TestResult> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            results.add(TestResult.of("Runs", 0, i < 10 ? 0.001 : 0.5, ALPHA));
+        }
+
+        TestSummary summary = BatteryRunner.summarize("Runs", results, ALPHA);
+
+        assertEquals(90, summary.passed());
+        assertFalse(summary.proportionAcceptable());
+        assertFalse(summary.uniform());
+    }
+
+    @Test
+    public void run_summarizes_every_test_over_every_sequence() {
+        int sequences = 16;
+        List<TestSummary> summaries = new BatteryRunner(sequences, 40_000).run();
+
+        // a 40,000-bit walk rarely has the 500 cycles the random excursions tests need, so only the sequences that
+        // do are summarized under their names
+        List<TestSummary> everySequence = summaries.stream()
+                .filter(summary -> !summary.name().startsWith("RandomExcursions"))
+                .toList();
+        List<String> names = everySequence.stream().map(TestSummary::name).toList();
+        assertEquals(List.of("Frequency", "BlockFrequency", "Runs", "LongestRun", "Rank", "FFT"),
+                names.subList(0, 6));
+        assertEquals("NonOverlappingTemplate-000000001", names.get(6));
+        assertEquals(List.of("Serial-1", "Serial-2", "ApproximateEntropy", "CumulativeSums-forward",
+                "CumulativeSums-reverse"), names.subList(6 + 148, names.size()));
+        for (TestSummary summary : everySequence) {
+            assertEquals(sequences, summary.sequences());
+            assertEquals(sequences, Arrays.stream(summary.histogram()).sum());
+        }
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void rejects_lengths_that_are_not_whole_bytes() {
+        new BatteryRunner(4, 40_001);
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void rejects_no_sequences() {
+        new BatteryRunner(0, 40_000);
+    }
+}
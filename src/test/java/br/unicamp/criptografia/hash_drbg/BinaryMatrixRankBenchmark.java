@@ -0,0 +1,114 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranking all 32 x 32 matrices of a sequence: the original String and int-per-bit elimination against the packed
+ * rows, on one thread and on the fork/join pool.
+ * <p>
+ * {@code mvn test-compile} then {@code java -cp <test classpath> org.openjdk.jmh.Main BinaryMatrixRankBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryMatrixRankBenchmark {
+    private static final int SIZE = BinaryMatrixRankTest.DEFAULT_MATRIX_SIZE;
+
+    @Param({"38912", "1000000", "10000000"})
+    public int length;
+
+    private String bitString;
+    private BitSequence sequence;
+    private long disjointBlocksN;
+    private final BinaryMatrixRankTest rankTest = new BinaryMatrixRankTest();
+
+    @Setup
+    public void setup() {
+        byte[] bytes = new byte[length / 8];
+        new Random(length).nextBytes(bytes);
+        sequence = BitSequence.fromBytes(bytes);
+        bitString = sequence.toString();
+        disjointBlocksN = length / (SIZE * SIZE);
+    }
+
+    @Benchmark
+    public int[] stringIntPerBit() {
+        int[] ranks = new int[3];
+        for (int block = 0; block < disjointBlocksN; block++) {
+            int rank = calculateBinaryRank(getSubMatrix(bitString, block, SIZE, SIZE), SIZE, SIZE);
+            ranks[rank == SIZE ? 0 : rank == SIZE - 1 ? 1 : 2]++;
+        }
+        return ranks;
+    }
+
+    @Benchmark
+    public long[] packedSequential() {
+        return rankTest.getFullDeficientAndLowerRanks(sequence, 0, disjointBlocksN);
+    }
+
+    @Benchmark
+    public long[] packedForkJoin() {
+        return rankTest.getFullDeficientAndLowerRanks(sequence, disjointBlocksN);
+    }
+
+    private static int[][] getSubMatrix(String sequence, int blockIndex, int rowsM, int columnsQ) {
+        int[][] matrix = new int[rowsM][columnsQ];
+        int start = blockIndex * rowsM * columnsQ;
+
+        for (int i = 0; i < rowsM; i++) {
+            for (int j = 0; j < columnsQ; j++) {
+                int index = start + i * columnsQ + j;
+                matrix[i][j] = Integer.parseInt(String.valueOf(sequence.charAt(index)));
+            }
+        }
+        return matrix;
+    }
+
+    private static int calculateBinaryRank(int[][] matrix, int rows, int columns) {
+        int rank = 0;
+
+        for (int row = 0; row < rows; row++) {
+            if (matrix[row][row] == 0) {
+                boolean swapped = false;
+                for (int i = row + 1; i < rows; i++) {
+                    if (matrix[i][row] == 1) {
+                        int[] temp = matrix[row];
+                        matrix[row] = matrix[i];
+                        matrix[i] = temp;
+                        swapped = true;
+                        break;
+                    }
+                }
+                if (!swapped) {
+                    continue;
+                }
+            }
+
+            for (int i = row + 1; i < rows; i++) {
+                if (matrix[i][row] == 1) {
+                    for (int j = row; j < columns; j++) {
+                        matrix[i][j] = matrix[i][j] ^ matrix[row][j];
+                    }
+                }
+            }
+            rank++;
+        }
+        return rank;
+    }
+}
@@ -0,0 +1,55 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Population and transition counts over the words of a sequence, a word at a time against {@code LongVector} lanes.
+ * <p>
+ * {@code mvn -P benchmark verify -Dbenchmark=BitKernelsBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Xmx3g"})
+public class BitKernelsBenchmark {
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    @Param({"1000000", "1000000000"})
+    public long length;
+
+    private long[] words;
+    private BitKernels.Kernels kernels;
+
+    @Setup
+    public void setup() {
+        words = new Random(length).longs((length + 63) >>> 6).toArray();
+        kernels = kernel.equals("vector") ? new VectorBitKernels() : new BitKernels.Scalar();
+    }
+
+    @Benchmark
+    public long bitCount() {
+        return kernels.bitCount(words, 0, words.length);
+    }
+
+    @Benchmark
+    public long transitions() {
+        return kernels.transitions(words, 0, words.length);
+    }
+}
@@ -0,0 +1,67 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidParameterException;
+
+import static org.junit.Assert.assertEquals;
+
+public class BitSequenceFilesTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void mapBinary_reads_the_file_in_place() throws IOException {
+        BitSequence e = NistReferenceData.e();
+        Path file = folder.newFile("e.bin").toPath();
+        byte[] bytes = StreamingSp80022SuiteTest.toBytes(e);
+        Files.write(file, bytes);
+
+        BitSequence mapped = BitSequenceFiles.mapBinary(file);
+
+        assertEquals(e, mapped);
+        assertEquals(new Sp80022Suite().run(e), new Sp80022Suite().run(mapped));
+    }
+
+    @Test
+    public void mapBinary_last_partial_word() throws IOException {
+        Path file = folder.newFile("odd.bin").toPath();
+        Files.write(file, new byte[]{(byte) 0xC9, 0x0F, (byte) 0xDA});
+
+        BitSequence mapped = BitSequenceFiles.mapBinary(file);
+        assertEquals("110010010000111111011010", mapped.toString());
+        assertEquals(13, mapped.bitCount());
+        assertEquals(11, mapped.transitions());
+    }
+
+    @Test
+    public void loadAscii_packs_NIST_data_files() throws IOException {
+        BitSequence e = NistReferenceData.e().slice(0, 100_003);
+        String bits = e.toString();
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < bits.length(); i += 80) {
+            lines.append(bits, i, Math.min(bits.length(), i + 80)).append('\n');
+        }
+        Path plain = folder.newFile("e.txt").toPath();
+        Path wrapped = folder.newFile("e-lines.txt").toPath();
+        Files.writeString(plain, bits, StandardCharsets.US_ASCII);
+        Files.writeString(wrapped, lines, StandardCharsets.US_ASCII);
+
+        assertEquals(e, BitSequenceFiles.loadAscii(plain));
+        assertEquals(e, BitSequenceFiles.loadAscii(wrapped));
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void loadAscii_rejects_non_bits() throws IOException {
+        Path file = folder.newFile("bad.txt").toPath();
+        Files.writeString(file, "0101010101012", StandardCharsets.US_ASCII);
+
+        BitSequenceFiles.loadAscii(file);
+    }
+}
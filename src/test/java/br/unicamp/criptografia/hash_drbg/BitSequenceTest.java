@@ -0,0 +1,91 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+import java.security.SecureRandom;
+
+import static org.junit.Assert.assertEquals;
+
+public class BitSequenceTest {
+    private static final String NIST_EXAMPLE_RANDOM_100_BITS = "11001001000011111101101010100010001000010110100" +
+            "01100001000110100110001001100011001100010100010111000";
+
+    @Test
+    public void fromBytes_matches_CryptoHelper_bytesToBits() {
+        byte[] bytes = new byte[77];
+        new SecureRandom().nextBytes(bytes);
+
+        BitSequence sequence = BitSequence.fromBytes(bytes);
+
+        assertEquals(CryptoHelper.bytesToBits(bytes), sequence.toString());
+        assertEquals(bytes.length * 8L, sequence.length());
+    }
+
+    @Test
+    public void fromString_round_trips_the_NIST_example() {
+        BitSequence sequence = BitSequence.fromString(NIST_EXAMPLE_RANDOM_100_BITS);
+
+        assertEquals(NIST_EXAMPLE_RANDOM_100_BITS, sequence.toString());
+        assertEquals(2, sequence.wordCount());
+    }
+
+    @Test
+    public void bits_reads_across_word_boundaries() {
+        BitSequence sequence = BitSequence.fromString(NIST_EXAMPLE_RANDOM_100_BITS);
+
+        for (int from = 0; from < 100; from++) {
+            for (int count = 0; count <= Math.min(64, 100 - from); count++) {
+                long expected = count == 0 ? 0 : Long.parseUnsignedLong(
+                        NIST_EXAMPLE_RANDOM_100_BITS.substring(from, from + count), 2);
+                assertEquals(expected, sequence.bits(from, count));
+            }
+        }
+    }
+
+    @Test
+    public void slice_and_bitCount() {
+        BitSequence sequence = BitSequence.fromString(NIST_EXAMPLE_RANDOM_100_BITS);
+
+        for (int from = 0; from < 100; from += 7) {
+            for (int length = 0; from + length <= 100; length += 13) {
+                String expected = NIST_EXAMPLE_RANDOM_100_BITS.substring(from, from + length);
+                assertEquals(expected, sequence.slice(from, length).toString());
+                assertEquals(expected.chars().filter(c -> c == '1').count(), sequence.bitCount(from, length));
+            }
+        }
+        assertEquals(42, sequence.bitCount());
+    }
+
+    @Test
+    public void kernels_match_a_word_at_a_time() {
+        // vector kernels when run with --add-modules jdk.incubator.vector
+        BitKernels.Kernels scalar = new BitKernels.Scalar();
+        long[] words = new SecureRandom().longs(300).toArray();
+        for (int from = 0; from < 40; from += 3) {
+            for (int to = from; to <= words.length; to += 17) {
+                assertEquals(scalar.bitCount(words, from, to), BitKernels.bitCount(words, from, to));
+                assertEquals(scalar.transitions(words, from, to), BitKernels.transitions(words, from, to));
+            }
+        }
+    }
+
+    @Test
+    public void transitions_of_every_length() {
+        String bits = NIST_EXAMPLE_RANDOM_100_BITS.repeat(2);
+        for (int length = 0; length <= bits.length(); length++) {
+            long expected = 0;
+            for (int k = 0; k + 1 < length; k++) {
+                if (bits.charAt(k) != bits.charAt(k + 1)) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, BitSequence.fromString(bits.substring(0, length)).transitions());
+        }
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void fromString_rejects_non_bits() {
+        BitSequence.fromString("0102");
+    }
+}
@@ -0,0 +1,83 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class BufferedEntropySourceTest {
+
+    @Test
+    public void seeds_are_distinct_and_counted() {
+        try (BufferedEntropySource source = new BufferedEntropySource(256, 4, 1, new SecureRandom())) {
+            byte[] previous = source.getEntropy();
+            for (int i = 0; i < 20; i++) {
+                byte[] seed = source.getEntropy();
+                assertEquals(32, seed.length);
+                assertFalse(Arrays.equals(previous, seed));
+                previous = seed;
+            }
+
+            assertEquals(21, source.getServed());
+            assertThat(source.getRefills(), greaterThanOrEqualTo(1L));
+        }
+    }
+
+    @Test
+    public void empty_buffer_makes_consumers_wait() {
+        SecureRandom slowSource = new SecureRandom() {
+            @Override
+            public void nextBytes(byte[] bytes) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.nextBytes(bytes);
+            }
+        };
+        try (BufferedEntropySource source = new BufferedEntropySource(256, 2, 0, slowSource)) {
+            for (int i = 0; i < 10; i++) {
+                source.getEntropy();
+            }
+
+            assertThat(source.getWaits(), greaterThan(0L));
+        }
+    }
+
+    @Test
+    public void drbg_reseeds_from_the_buffer() {
+        try (BufferedEntropySource source = new BufferedEntropySource(256)) {
+            BouncyCastleHashDRBG drbg = new BouncyCastleHashDRBG(CryptoHelper.generateNonce(128),
+                    CryptoHelper.generatePersonalizationString(), true, source);
+            byte[] output = new byte[100_000];
+
+            drbg.generate(output, 0, output.length);
+
+            assertThat(source.getServed(), greaterThan(1L));
+            assertThat(new FrequencyTest().run(BitSequence.fromBytes(output), 0.0001).get(0).pValue(),
+                    greaterThanOrEqualTo(0.0001));
+        }
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void rejects_other_seed_sizes() {
+        try (BufferedEntropySource source = new BufferedEntropySource(256)) {
+            source.get(128);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closed_source_refuses_seeds() {
+        BufferedEntropySource source = new BufferedEntropySource(256, 2, 0, new SecureRandom());
+        source.close();
+        source.getEntropy();
+    }
+}
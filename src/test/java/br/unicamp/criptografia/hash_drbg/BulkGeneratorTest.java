@@ -0,0 +1,72 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BulkGeneratorTest {
+
+    @Test
+    public void parallel_generators_take_turns_in_the_output() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new BulkGenerator(generators(3), BulkGenerator.Format.RAW, 1000)
+                .write(10_500, Channels.newChannel(output), null);
+
+        assertArrayEquals(takingTurns(generators(3), 1000, 10_500), output.toByteArray());
+    }
+
+    @Test
+    public void hex_and_bits_format_the_generated_bytes() throws IOException {
+        byte[] raw = takingTurns(generators(2), 100, 1001);
+        ByteArrayOutputStream hex = new ByteArrayOutputStream();
+        ByteArrayOutputStream bits = new ByteArrayOutputStream();
+
+        new BulkGenerator(generators(2), BulkGenerator.Format.HEX, 100).write(1001, Channels.newChannel(hex), null);
+        new BulkGenerator(generators(2), BulkGenerator.Format.BITS, 100).write(1001, Channels.newChannel(bits), null);
+
+        assertEquals(HexFormat.of().formatHex(raw) + "\n", hex.toString(StandardCharsets.US_ASCII));
+        assertEquals(CryptoHelper.bytesToBits(raw) + "\n", bits.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void suite_tests_the_generated_bytes() throws IOException {
+        long bytes = 20_000;
+        StreamingSp80022Suite inline = new StreamingSp80022Suite(8 * bytes);
+        new BulkGenerator(generators(4), BulkGenerator.Format.HEX, 4096)
+                .write(bytes, Channels.newChannel(new ByteArrayOutputStream()), inline);
+
+        StreamingSp80022Suite expected = new StreamingSp80022Suite(8 * bytes);
+        expected.update(takingTurns(generators(4), 4096, bytes));
+        assertEquals(expected.finish(), inline.finish());
+    }
+
+    /**
+     * Identically seeded on each call, instance i from entropy i.
+     */
+    private static List<BouncyCastleHashDRBG> generators(int count) {
+        List<BouncyCastleHashDRBG> generators = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            generators.add(new BouncyCastleHashDRBG("nonce", "personalization", ReseedPolicy.whenExhausted(),
+                    TestEntropy.filled((byte) i)));
+        }
+        return generators;
+    }
+
+    private static byte[] takingTurns(List<BouncyCastleHashDRBG> generators, int chunkBytes, long bytes) {
+        byte[] output = new byte[(int) bytes];
+        for (int offset = 0, i = 0; offset < output.length; offset += chunkBytes, i++) {
+            generators.get(i % generators.size())
+                    .generate(output, offset, Math.min(chunkBytes, output.length - offset));
+        }
+        return output;
+    }
+}
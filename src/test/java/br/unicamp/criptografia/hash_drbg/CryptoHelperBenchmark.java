@@ -0,0 +1,68 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CryptoHelper} seed material and bit conversions, next to the packed {@link BitSequence} equivalents.
+ * <p>
+ * {@code mvn -P benchmark verify -Dbenchmark=CryptoHelperBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoHelperBenchmark {
+
+    @Param({"32", "4096", "131072"})
+    public int bytes;
+
+    private byte[] input;
+    private String bits;
+
+    @Setup
+    public void setup() {
+        input = new byte[bytes];
+        new Random(bytes).nextBytes(input);
+        bits = CryptoHelper.bytesToBits(input);
+    }
+
+    @Benchmark
+    public String generateNonce() {
+        return CryptoHelper.generateNonce(128);
+    }
+
+    @Benchmark
+    public String generatePersonalizationString() {
+        return CryptoHelper.generatePersonalizationString();
+    }
+
+    @Benchmark
+    public String bytesToBits() {
+        return CryptoHelper.bytesToBits(input);
+    }
+
+    @Benchmark
+    public BitSequence bitSequenceFromBytes() {
+        return BitSequence.fromBytes(input);
+    }
+
+    @Benchmark
+    public BitSequence bitSequenceFromString() {
+        return BitSequence.fromString(bits);
+    }
+}
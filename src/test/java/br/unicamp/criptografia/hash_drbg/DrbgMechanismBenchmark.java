@@ -0,0 +1,67 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation throughput of each {@link DrbgMechanism}, reseeding only when exhausted. The {@code bytes} secondary
+ * result is the throughput in bytes per second. Pair it with {@link BatteryRunner} over the same mechanism to pick the
+ * fastest one that passes.
+ * <p>
+ * {@code mvn -P benchmark verify -Dbenchmark=DrbgMechanismBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrbgMechanismBenchmark {
+
+    @Param({"HASH_SHA256", "HASH_SHA512", "HMAC_SHA256", "HMAC_SHA512", "CTR_AES256"})
+    public DrbgMechanism mechanism;
+
+    @Param({"32", "32768"})
+    public int requestBytes;
+
+    private BouncyCastleDRBG drbg;
+    private byte[] output;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Bytes {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        drbg = new BouncyCastleDRBG(mechanism, CryptoHelper.generateNonce(128),
+                CryptoHelper.generatePersonalizationString());
+        output = new byte[requestBytes];
+    }
+
+    @Benchmark
+    public byte[] generate(Bytes counter) {
+        drbg.generate(output, 0, output.length);
+        counter.bytes += output.length;
+        return output;
+    }
+}
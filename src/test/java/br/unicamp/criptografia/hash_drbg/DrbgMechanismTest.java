@@ -0,0 +1,92 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.prng.EntropySource;
+import org.bouncycastle.crypto.prng.drbg.CTRSP800DRBG;
+import org.bouncycastle.crypto.prng.drbg.HMacSP800DRBG;
+import org.bouncycastle.crypto.prng.drbg.HashSP800DRBG;
+import org.bouncycastle.crypto.prng.drbg.SP80090DRBG;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class DrbgMechanismTest {
+    private static final String NONCE = "nonce";
+    private static final String PERSONALIZATION_STRING = "personalization";
+
+    @Test
+    public void jdk_primitives_give_the_output_of_bouncy_castle_primitives() {
+        for (DrbgMechanism mechanism : DrbgMechanism.values()) {
+            BouncyCastleDRBG drbg = new BouncyCastleDRBG(mechanism, NONCE, PERSONALIZATION_STRING,
+                    ReseedPolicy.whenExhausted(), TestEntropy.seeded(1));
+            SP80090DRBG reference = bouncyCastle(mechanism, TestEntropy.seeded(1).get(256));
+            byte[] expected = new byte[1000];
+            byte[] actual = new byte[expected.length];
+
+            for (int request = 0; request < 3; request++) {
+                reference.generate(expected, null, false);
+                drbg.generate(actual, 0, actual.length);
+                assertArrayEquals(mechanism.name(), expected, actual);
+            }
+            reference.reseed(new byte[]{1, 2, 3});
+            drbg.reseed(new byte[]{1, 2, 3});
+            reference.generate(expected, null, false);
+            drbg.generate(actual, 0, actual.length);
+            assertArrayEquals(mechanism.name(), expected, actual);
+        }
+    }
+
+    @Test
+    public void every_mechanism_passes_the_suite() {
+        int bytes = 1_000_000 / 8;
+        for (DrbgMechanism mechanism : DrbgMechanism.values()) {
+            byte[] output = new byte[bytes];
+            new BouncyCastleDRBG(mechanism, NONCE, PERSONALIZATION_STRING, ReseedPolicy.whenExhausted(),
+                    TestEntropy.seeded(2))
+                    .generate(output, 0, output.length);
+
+            List<TestResult> results = new Sp80022Suite().run(BitSequence.fromBytes(output));
+
+            // about 190 results, one in a hundred expected to fail; 8 or more is below the 0.001 quantile
+            long failed = results.stream().filter(result -> !result.passed()).count();
+            assertThat(mechanism.name(), failed, lessThan(8L));
+        }
+    }
+
+    @Test
+    public void block_size_is_the_primitive_block_size() {
+        assertEquals(256, blockSize(DrbgMechanism.HASH_SHA256));
+        assertEquals(512, blockSize(DrbgMechanism.HMAC_SHA512));
+        assertEquals(128, blockSize(DrbgMechanism.CTR_AES256));
+    }
+
+    private static int blockSize(DrbgMechanism mechanism) {
+        return new BouncyCastleDRBG(mechanism, NONCE, PERSONALIZATION_STRING, ReseedPolicy.whenExhausted(),
+                TestEntropy.seeded(3)).getBlockSize();
+    }
+
+    private static SP80090DRBG bouncyCastle(DrbgMechanism mechanism, EntropySource entropySource) {
+        byte[] nonce = NONCE.getBytes();
+        byte[] personalizationString = PERSONALIZATION_STRING.getBytes();
+        return switch (mechanism) {
+            case HASH_SHA256 -> new HashSP800DRBG(new SHA256Digest(), 256, entropySource,
+                    personalizationString, nonce);
+            case HASH_SHA512 -> new HashSP800DRBG(new SHA512Digest(), 256, entropySource,
+                    personalizationString, nonce);
+            case HMAC_SHA256 -> new HMacSP800DRBG(new HMac(new SHA256Digest()), 256, entropySource,
+                    personalizationString, nonce);
+            case HMAC_SHA512 -> new HMacSP800DRBG(new HMac(new SHA512Digest()), 256, entropySource,
+                    personalizationString, nonce);
+            case CTR_AES256 -> new CTRSP800DRBG(AESEngine.newInstance(), 256, 256, entropySource,
+                    personalizationString, nonce);
+        };
+    }
+}
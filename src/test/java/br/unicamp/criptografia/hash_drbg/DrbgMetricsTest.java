@@ -0,0 +1,130 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DrbgMetricsTest {
+    private static final String PREFIX = "br.unicamp.criptografia.hash_drbg.";
+
+    @Test
+    public void recording_captures_generator_and_test_events() throws IOException {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("Instantiate", "Generate", "Reseed", "TestRun")) {
+                recording.enable(PREFIX + name);
+            }
+            recording.start();
+
+            BouncyCastleHashDRBG drbg = newDrbg();
+            byte[] output = new byte[1000];
+            drbg.generate(output, 0, output.length);
+            drbg.reseed(null);
+            new Sp80022Suite().run(BitSequence.fromBytes(output), List.of(new FrequencyTest()));
+
+            recording.stop();
+            Path file = Files.createTempFile("drbg", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        Map<String, List<RecordedEvent>> byName = events.stream()
+                .collect(Collectors.groupingBy(event -> event.getEventType().getName()));
+        assertEquals(1, byName.get(PREFIX + "Instantiate").size());
+        RecordedEvent generate = byName.get(PREFIX + "Generate").get(0);
+        assertEquals(1000, generate.getLong("bytes"));
+        assertThat(generate.getDuration().toNanos(), greaterThan(0L));
+        assertEquals("explicit", byName.get(PREFIX + "Reseed").get(0).getString("cause"));
+        RecordedEvent testRun = byName.get(PREFIX + "TestRun").get(0);
+        assertEquals("Frequency", testRun.getString("test"));
+        assertEquals(8000, testRun.getLong("sequenceLength"));
+        assertEquals(1, testRun.getInt("results"));
+        assertTrue(testRun.getDouble("pValue") >= 0 && testRun.getDouble("pValue") <= 1);
+    }
+
+    @Test
+    public void counters_accumulate_and_are_exposed_over_jmx() throws Exception {
+        DrbgMetrics metrics = DrbgMetrics.register();
+        long bytes = metrics.getBytesGenerated();
+        long calls = metrics.getGenerateCalls();
+        long reseeds = metrics.getReseeds();
+        long testRuns = metrics.getTestRuns();
+
+        BouncyCastleHashDRBG drbg = newDrbg();
+        for (int i = 0; i < 10; i++) {
+            drbg.generate();
+        }
+        drbg.reseed(null);
+        new Sp80022Suite().run(BitSequence.fromBytes(drbg.generate()), List.of(new FrequencyTest(), new RunsTest()));
+
+        assertThat(metrics.getBytesGenerated() - bytes, greaterThanOrEqualTo(11L * 32));
+        assertThat(metrics.getGenerateCalls() - calls, greaterThanOrEqualTo(11L));
+        assertThat(metrics.getReseeds() - reseeds, greaterThanOrEqualTo(1L));
+        assertThat(metrics.getTestRuns() - testRuns, greaterThanOrEqualTo(2L));
+        assertThat(metrics.getGenerateThroughput(), greaterThan(0.0));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        long viaJmx = (Long) server.getAttribute(new ObjectName(DrbgMetrics.OBJECT_NAME), "BytesGenerated");
+        assertEquals(metrics.getBytesGenerated(), viaJmx);
+    }
+
+    @Test
+    public void prediction_resistant_requests_count_as_reseeds() throws IOException {
+        DrbgMetrics metrics = DrbgMetrics.register();
+        List<RecordedEvent> events;
+        long reseeds;
+        try (Recording recording = new Recording()) {
+            recording.enable(PREFIX + "Reseed");
+            recording.start();
+
+            BouncyCastleHashDRBG drbg = new BouncyCastleHashDRBG(CryptoHelper.generateNonce(128),
+                    CryptoHelper.generatePersonalizationString(), ReseedPolicy.everyRequest());
+            drbg.generate();
+            reseeds = metrics.getReseeds();
+            for (int i = 0; i < 5; i++) {
+                drbg.generate();
+            }
+            reseeds = metrics.getReseeds() - reseeds;
+
+            recording.stop();
+            Path file = Files.createTempFile("drbg", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        assertThat(reseeds, greaterThanOrEqualTo(5L));
+        assertEquals(6, events.stream()
+                .filter(event -> event.getEventType().getName().equals(PREFIX + "Reseed"))
+                .filter(event -> event.getString("cause").equals("prediction-resistance"))
+                .count());
+    }
+
+    private static BouncyCastleHashDRBG newDrbg() {
+        return new BouncyCastleHashDRBG(CryptoHelper.generateNonce(128), CryptoHelper.generatePersonalizationString());
+    }
+}
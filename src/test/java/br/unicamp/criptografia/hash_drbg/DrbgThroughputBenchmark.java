@@ -0,0 +1,96 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk generation throughput by request size and {@link ReseedPolicy}. The {@code bytes} secondary result is the
+ * throughput in bytes per second.
+ * <p>
+ * {@link #bulkGenerate} and {@link #legacyGenerate}, the 32-byte {@link BouncyCastleHashDRBG#generate()}, request from
+ * one long-lived generator. {@link #freshInstanceGenerate} instantiates a generator for every request, as
+ * {@link BouncyCastleHashDRBG#generate()} did before generators were kept, the baseline of the other two.
+ * <p>
+ * {@code mvn -P benchmark verify -Dbenchmark=DrbgThroughputBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrbgThroughputBenchmark {
+
+    @Param({"32", "1024", "32768", "1048576"})
+    public int requestBytes;
+
+    @Param({"whenExhausted", "afterMegabyte", "everySecond", "everyRequest"})
+    public String reseed;
+
+    private String nonce;
+    private String personalizationString;
+    private ReseedPolicy policy;
+    private BouncyCastleHashDRBG drbg;
+    private byte[] output;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Bytes {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        policy = switch (reseed) {
+            case "whenExhausted" -> ReseedPolicy.whenExhausted();
+            case "afterMegabyte" -> ReseedPolicy.afterBytes(1 << 20);
+            case "everySecond" -> ReseedPolicy.every(Duration.ofSeconds(1));
+            case "everyRequest" -> ReseedPolicy.everyRequest();
+            default -> throw new IllegalArgumentException("Unknown reseed policy: " + reseed);
+        };
+        nonce = CryptoHelper.generateNonce(128);
+        personalizationString = CryptoHelper.generatePersonalizationString();
+        drbg = new BouncyCastleHashDRBG(nonce, personalizationString, policy);
+        output = new byte[requestBytes];
+    }
+
+    @Benchmark
+    public byte[] bulkGenerate(Bytes counter) {
+        drbg.generate(output, 0, output.length);
+        counter.bytes += output.length;
+        return output;
+    }
+
+    @Benchmark
+    public byte[] legacyGenerate(Bytes counter) {
+        byte[] bytes = drbg.generate();
+        counter.bytes += bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public byte[] freshInstanceGenerate(Bytes counter) {
+        new BouncyCastleHashDRBG(nonce, personalizationString, policy).generate(output, 0, output.length);
+        counter.bytes += output.length;
+        return output;
+    }
+}
@@ -0,0 +1,193 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA384Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.SHA512tDigest;
+import org.bouncycastle.crypto.prng.drbg.HashSP800DRBG;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidParameterException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HashDrbgKatTest {
+    private static final int CASES_PER_SECTION = 15;
+    private static final HexFormat HEX = HexFormat.of();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private record DigestVectors(String name, Supplier<Digest> digest, int strength, int returnedBitsLen) {
+    }
+
+    private static final DigestVectors[] DIGESTS = {
+            new DigestVectors("SHA-1", SHA1Digest::new, 128, 640),
+            new DigestVectors("SHA-256", SHA256Digest::new, 256, 1024),
+            new DigestVectors("SHA-384", SHA384Digest::new, 256, 1536),
+            new DigestVectors("SHA-512", SHA512Digest::new, 256, 2048),
+            new DigestVectors("SHA-512/256", () -> new SHA512tDigest(256), 256, 1024),
+    };
+
+    @Test
+    public void replays_no_reseed_pr_false_and_pr_true_files() throws IOException {
+        Path noReseed = write("no_reseed.rsp", vectors(Mode.NO_RESEED, -1));
+        Path prFalse = write("pr_false.rsp", vectors(Mode.PR_FALSE, -1));
+        Path prTrue = write("pr_true.rsp", vectors(Mode.PR_TRUE, -1));
+
+        HashDrbgKat.Summary summary = HashDrbgKat.run(noReseed, prFalse, prTrue);
+
+        assertEquals(3 * DIGESTS.length * 4 * CASES_PER_SECTION, summary.cases());
+        assertEquals(List.of(), summary.mismatches());
+        assertTrue(summary.passed());
+    }
+
+    /**
+     * Known answers from an implementation other than Bouncy Castle's, with personalization strings and additional
+     * inputs, in each mode; see the header of the files.
+     */
+    @Test
+    public void replays_independent_sha_256_answers_of_each_mode() throws Exception {
+        for (String mode : List.of("no_reseed", "pr_false", "pr_true")) {
+            Path file = Path.of(getClass().getResource("/cavp/Hash_DRBG_" + mode + ".rsp").toURI());
+
+            HashDrbgKat.Summary summary = HashDrbgKat.run(file);
+
+            assertEquals(mode, 4, summary.cases());
+            assertEquals(mode, List.of(), summary.mismatches());
+        }
+    }
+
+    @Test
+    public void reports_mismatching_cases() throws IOException {
+        int corrupted = 37;
+        Path prTrue = write("pr_true.rsp", vectors(Mode.PR_TRUE, corrupted));
+
+        HashDrbgKat.Summary summary = HashDrbgKat.run(prTrue);
+
+        assertEquals(1, summary.mismatches().size());
+        HashDrbgKat.Mismatch mismatch = summary.mismatches().get(0);
+        // 4 sections of 15 cases per digest
+        assertEquals("SHA-1", mismatch.section().digest());
+        assertTrue(mismatch.section().predictionResistance());
+        assertEquals(corrupted % CASES_PER_SECTION, mismatch.count());
+        assertEquals(mismatch.actual().substring(2), mismatch.expected().substring(2));
+    }
+
+    @Test
+    public void parses_without_moving_the_buffer() {
+        ByteBuffer rsp = ByteBuffer.wrap(vectors(Mode.PR_FALSE, -1).getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(DIGESTS.length * 4 * CASES_PER_SECTION, HashDrbgKat.parse(rsp).size());
+        assertEquals(0, rsp.position());
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void rejects_unknown_digests() {
+        HashDrbgKat.parse(ByteBuffer.wrap("[MD5]\r\n\r\nCOUNT = 0\r\n".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private enum Mode {
+        NO_RESEED, PR_FALSE, PR_TRUE
+    }
+
+    private Path write(String name, String contents) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.writeString(file, contents, StandardCharsets.US_ASCII);
+        return file;
+    }
+
+    /**
+     * A response file in the DRBGVS layout, CRLF line ends included, its returned bits computed with Bouncy Castle's
+     * own digests.
+     *
+     * @param corrupted the index of a case whose returned bits get their first byte flipped, or -1
+     */
+    private static String vectors(Mode mode, int corrupted) {
+        Random random = new Random(mode.ordinal());
+        StringBuilder rsp = new StringBuilder("# CAVS 14.3\r\n# DRBG800-90A information for \"drbgvectors_")
+                .append(mode.name().toLowerCase()).append("\"\r\n\r\n");
+        int index = 0;
+        for (DigestVectors digest : DIGESTS) {
+            for (int section = 0; section < 4; section++) {
+                int personalizationStringLen = (section & 1) == 0 ? 0 : digest.strength();
+                int additionalInputLen = (section & 2) == 0 ? 0 : digest.strength();
+                rsp.append('[').append(digest.name()).append("]\r\n")
+                        .append("[PredictionResistance = ").append(mode == Mode.PR_TRUE ? "True" : "False")
+                        .append("]\r\n")
+                        .append("[EntropyInputLen = ").append(digest.strength()).append("]\r\n")
+                        .append("[NonceLen = ").append(digest.strength() / 2).append("]\r\n")
+                        .append("[PersonalizationStringLen = ").append(personalizationStringLen).append("]\r\n")
+                        .append("[AdditionalInputLen = ").append(additionalInputLen).append("]\r\n")
+                        .append("[ReturnedBitsLen = ").append(digest.returnedBitsLen()).append("]\r\n\r\n");
+                for (int count = 0; count < CASES_PER_SECTION; count++, index++) {
+                    byte[] entropyInput = bytes(random, digest.strength());
+                    byte[] nonce = bytes(random, digest.strength() / 2);
+                    byte[] personalizationString = bytes(random, personalizationStringLen);
+                    Deque<byte[]> entropy = new ArrayDeque<>();
+                    entropy.add(entropyInput);
+                    rsp.append("COUNT = ").append(count).append("\r\n")
+                            .append("EntropyInput = ").append(HEX.formatHex(entropyInput)).append("\r\n")
+                            .append("Nonce = ").append(HEX.formatHex(nonce)).append("\r\n")
+                            .append("PersonalizationString = ").append(HEX.formatHex(personalizationString))
+                            .append("\r\n");
+                    HashSP800DRBG drbg = new HashSP800DRBG(digest.digest().get(), digest.strength(),
+                            TestEntropy.replaying(entropy, digest.strength()), nullIfEmpty(personalizationString),
+                            nonce);
+
+                    if (mode == Mode.PR_FALSE) {
+                        byte[] entropyInputReseed = bytes(random, digest.strength());
+                        byte[] additionalInputReseed = bytes(random, additionalInputLen);
+                        rsp.append("EntropyInputReseed = ").append(HEX.formatHex(entropyInputReseed)).append("\r\n")
+                                .append("AdditionalInputReseed = ").append(HEX.formatHex(additionalInputReseed))
+                                .append("\r\n");
+                        entropy.add(entropyInputReseed);
+                        drbg.reseed(nullIfEmpty(additionalInputReseed));
+                    }
+                    byte[] returnedBits = new byte[digest.returnedBitsLen() / 8];
+                    for (int generate = 0; generate < 2; generate++) {
+                        byte[] additionalInput = bytes(random, additionalInputLen);
+                        rsp.append("AdditionalInput = ").append(HEX.formatHex(additionalInput)).append("\r\n");
+                        if (mode == Mode.PR_TRUE) {
+                            byte[] entropyInputPR = bytes(random, digest.strength());
+                            rsp.append("EntropyInputPR = ").append(HEX.formatHex(entropyInputPR)).append("\r\n");
+                            entropy.add(entropyInputPR);
+                        }
+                        drbg.generate(returnedBits, nullIfEmpty(additionalInput), mode == Mode.PR_TRUE);
+                    }
+                    if (index == corrupted) {
+                        returnedBits[0] ^= 1;
+                    }
+                    rsp.append("ReturnedBits = ").append(HEX.formatHex(returnedBits)).append("\r\n\r\n");
+                }
+            }
+        }
+        return rsp.toString();
+    }
+
+    private static byte[] bytes(Random random, int bits) {
+        byte[] bytes = new byte[bits / 8];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] nullIfEmpty(byte[] bytes) {
+        return bytes.length == 0 ? null : bytes;
+    }
+}
@@ -0,0 +1,53 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.junit.Test;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class HashDrbgProviderTest {
+    private static final HashDrbgProvider PROVIDER = new HashDrbgProvider();
+
+    @Test
+    public void getInstance_returns_a_thread_safe_HashDRBG() throws Exception {
+        SecureRandom random = SecureRandom.getInstance(HashDrbgProvider.ALGORITHM, PROVIDER);
+
+        assertEquals(HashDrbgProvider.ALGORITHM, random.getAlgorithm());
+        assertEquals("true", PROVIDER.getService("SecureRandom", HashDrbgProvider.ALGORITHM)
+                .getAttribute("ThreadSafe"));
+        random.setSeed(new byte[]{1, 2, 3});
+        assertEquals(20, random.generateSeed(20).length);
+    }
+
+    @Test
+    public void nextBytes_from_platform_and_virtual_threads() throws Exception {
+        SecureRandom random = SecureRandom.getInstance(HashDrbgProvider.ALGORITHM, PROVIDER);
+        int tasks = 64;
+        List<Future<byte[]>> outputs = new ArrayList<>();
+        try (ExecutorService platform = Executors.newFixedThreadPool(4);
+             ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < tasks; i++) {
+                ExecutorService executor = i % 2 == 0 ? platform : virtual;
+                outputs.add(executor.submit(() -> {
+                    byte[] bytes = new byte[BouncyCastleHashDRBG.MAX_BYTES_PER_REQUEST / 16];
+                    random.nextBytes(bytes);
+                    return bytes;
+                }));
+            }
+        }
+
+        Set<BitSequence> distinct = new HashSet<>();
+        for (Future<byte[]> output : outputs) {
+            distinct.add(BitSequence.fromBytes(output.get()));
+        }
+        assertEquals(tasks, distinct.size());
+    }
+}
@@ -0,0 +1,71 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.bouncycastle.crypto.prng.EntropySource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A seed from {@link SecureRandom}, with and without the continuous health tests.
+ * <p>
+ * {@code mvn -P benchmark verify -Dbenchmark=HealthTestsBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HealthTestsBenchmark {
+
+    @Param({"256", "4096"})
+    public int bits;
+
+    private byte[] samples;
+    private int offset;
+    private SecureRandom secureRandom;
+    private HealthTests healthTests;
+    private EntropySource tested;
+
+    @Setup
+    public void setup() {
+        samples = new byte[1 << 20];
+        secureRandom = new SecureRandom();
+        secureRandom.nextBytes(samples);
+        // a long stream, so that the windows do not see the same bytes again
+        healthTests = new HealthTests(8, HealthTests.DEFAULT_FALSE_POSITIVE_EXPONENT, failure -> {
+        });
+        tested = HealthTestedEntropySource.provider(new SecureRandom(), 8).get(bits);
+    }
+
+    @Benchmark
+    public byte[] secureRandom() {
+        byte[] entropy = new byte[bits / 8];
+        secureRandom.nextBytes(entropy);
+        return entropy;
+    }
+
+    @Benchmark
+    public byte[] healthTested() {
+        return tested.getEntropy();
+    }
+
+    @Benchmark
+    public long healthTestsOnly() {
+        int length = bits / 8;
+        healthTests.test(samples, offset, length);
+        offset = (offset + length) & (samples.length - 1);
+        return healthTests.getSamples();
+    }
+}
@@ -0,0 +1,133 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.bouncycastle.crypto.prng.EntropySource;
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class HealthTestsTest {
+    private final List<HealthTests.Failure> failures = new ArrayList<>();
+
+    @Test
+    public void repetition_count_cutoff_of_sp_800_90b() {
+        // 4.4.1: H = 2, alpha = 2^-20
+        assertEquals(11, HealthTests.repetitionCountCutoff(2, 20));
+    }
+
+    @Test
+    public void adaptive_proportion_cutoffs_of_sp_800_90b_table_2() {
+        double[] minEntropies = {0.5, 1, 2, 4, 8};
+        int[] cutoffs = {410, 311, 177, 62, 13};
+        for (int i = 0; i < minEntropies.length; i++) {
+            assertEquals(cutoffs[i], HealthTests.adaptiveProportionCutoff(minEntropies[i], 20));
+        }
+    }
+
+    @Test
+    public void secure_random_passes() {
+        HealthTests healthTests = new HealthTests(8, HealthTests.DEFAULT_FALSE_POSITIVE_EXPONENT, failures::add);
+        byte[] samples = new byte[1 << 16];
+        new SecureRandom().nextBytes(samples);
+
+        healthTests.test(samples, 0, samples.length);
+
+        assertThat(failures, empty());
+        assertEquals(samples.length, healthTests.getSamples());
+    }
+
+    @Test
+    public void stuck_samples_fail_each_test_once() {
+        HealthTests healthTests = new HealthTests(8, 20, failures::add);
+        byte[] samples = new byte[100];
+
+        healthTests.test(samples, 0, 2);
+        healthTests.test(samples, 2, samples.length - 2);
+
+        assertEquals(List.of(new HealthTests.Failure(HealthTests.Test.REPETITION_COUNT, 0, 4, 4),
+                new HealthTests.Failure(HealthTests.Test.ADAPTIVE_PROPORTION, 0, 13, 13)), failures);
+    }
+
+    @Test
+    public void frequent_samples_fail_the_adaptive_proportion_test() {
+        HealthTests healthTests = new HealthTests(8, 20, failures::add);
+        // every other sample is 0x55, never twice in a row
+        byte[] samples = new byte[HealthTests.ADAPTIVE_PROPORTION_WINDOW];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (byte) (i % 2 == 0 ? 0x55 : 0x80 + i / 2 % 100);
+        }
+
+        healthTests.test(samples, 0, samples.length);
+
+        assertEquals(List.of(new HealthTests.Failure(HealthTests.Test.ADAPTIVE_PROPORTION, 0x55, 13, 25)), failures);
+    }
+
+    @Test
+    public void words_and_single_samples_agree() {
+        List<HealthTests.Failure> sampleFailures = new ArrayList<>();
+        HealthTests words = new HealthTests(4, 20, failures::add);
+        HealthTests singles = new HealthTests(4, 20, sampleFailures::add);
+        // sixteen values, with runs, and stretches of only four values
+        Random random = new Random(20);
+        byte[] samples = new byte[1 << 16];
+        int values = 16;
+        for (int i = 0; i < samples.length; i++) {
+            if (i % 300 == 0) {
+                values = random.nextInt(4) == 0 ? 4 : 16;
+            }
+            samples[i] = (byte) (i > 0 && random.nextInt(10) == 0 ? samples[i - 1] : random.nextInt(values));
+        }
+
+        for (int offset = 0; offset < samples.length; ) {
+            int length = Math.min(random.nextInt(100), samples.length - offset);
+            words.test(samples, offset, length);
+            offset += length;
+        }
+        for (int i = 0; i < samples.length; i++) {
+            singles.test(samples, i, 1);
+        }
+
+        assertThat(failures, not(empty()));
+        assertEquals(sampleFailures, failures);
+    }
+
+    @Test
+    public void failing_seeds_throw() {
+        EntropySource stuck = TestEntropy.filled((byte) 0).get(256);
+        HealthTestedEntropySource source = new HealthTestedEntropySource(stuck, new HealthTests(8));
+
+        try {
+            source.getEntropy();
+            fail();
+        } catch (EntropyHealthException e) {
+            assertEquals(HealthTests.Test.REPETITION_COUNT, e.getFailure().test());
+        }
+    }
+
+    @Test
+    public void first_seed_follows_the_startup_test() {
+        HealthTestedEntropySource source = (HealthTestedEntropySource) HealthTestedEntropySource
+                .provider(new SecureRandom(), 8, failures::add)
+                .get(256);
+
+        source.getEntropy();
+        source.getEntropy();
+
+        assertEquals(HealthTests.STARTUP_SAMPLES + 2 * 32, source.getHealthTests().getSamples());
+        assertThat(failures, empty());
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void rejects_min_entropy_above_the_sample_size() {
+        new HealthTests(9);
+    }
+}
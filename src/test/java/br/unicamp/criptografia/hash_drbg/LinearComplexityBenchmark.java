@@ -0,0 +1,102 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Berlekamp-Massey over every M = 500 block of a sequence: one bit per int against the packed polynomials, on one
+ * thread and as the whole parallel test.
+ * <p>
+ * {@code mvn -P benchmark verify -Dbenchmark=LinearComplexityBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinearComplexityBenchmark {
+    private static final int M = LinearComplexityTest.DEFAULT_BLOCK_LENGTH;
+
+    @Param({"1000000", "10000000"})
+    public int length;
+
+    private BitSequence sequence;
+    private int[] bits;
+    private final LinearComplexityTest test = new LinearComplexityTest();
+
+    @Setup
+    public void setup() {
+        byte[] bytes = new byte[length / 8];
+        new Random(length).nextBytes(bytes);
+        sequence = BitSequence.fromBytes(bytes);
+        bits = new int[length];
+        for (int i = 0; i < length; i++) {
+            bits[i] = sequence.bit(i);
+        }
+    }
+
+    @Benchmark
+    public long intPerBit() {
+        long sum = 0;
+        for (int block = 0; block < length / M; block++) {
+            sum += berlekampMassey(bits, block * M, M);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long packedSequential() {
+        long sum = 0;
+        for (int block = 0; block < length / M; block++) {
+            sum += LinearComplexityTest.linearComplexity(sequence, (long) block * M, M);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<TestResult> packedParallelTest() {
+        return test.run(sequence, Sp80022Suite.DEFAULT_SIGNIFICANCE_LEVEL);
+    }
+
+    private static int berlekampMassey(int[] s, int from, int n) {
+        int[] c = new int[n];
+        int[] b = new int[n];
+        int[] t = new int[n];
+        c[0] = 1;
+        b[0] = 1;
+        int l = 0;
+        int m = -1;
+        for (int i = 0; i < n; i++) {
+            int d = s[from + i];
+            for (int j = 1; j <= l; j++) {
+                d ^= c[j] & s[from + i - j];
+            }
+            if (d == 1) {
+                System.arraycopy(c, 0, t, 0, n);
+                for (int j = 0; j + i - m < n; j++) {
+                    c[j + i - m] ^= b[j];
+                }
+                if (2 * l <= i) {
+                    l = i + 1 - l;
+                    m = i;
+                    System.arraycopy(t, 0, b, 0, n);
+                }
+            }
+        }
+        return l;
+    }
+}
@@ -0,0 +1,86 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MainTest {
+    private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+    @Test
+    public void defaults_to_32_hex_bytes_on_standard_output() throws IOException {
+        assertEquals(0, run());
+
+        assertTrue(stdout.toString(StandardCharsets.US_ASCII).matches("[0-9a-f]{64}\n"));
+    }
+
+    @Test
+    public void writes_a_file_and_reports_the_battery() throws IOException {
+        Path file = Files.createTempFile("drbg", ".bin");
+        try {
+            int status = run("--bytes", "64K", "-f", "raw", "-o", file.toString(), "-j", "2", "-c", "4K", "--test");
+
+            assertEquals(64 * 1024, Files.size(file));
+            assertEquals(0, stdout.size());
+            String report = stderr.toString(StandardCharsets.US_ASCII);
+            assertThat(report, containsString("Frequency"));
+            assertEquals(report.contains("FAIL") ? 1 : 0, status);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void selects_the_mechanism() throws IOException {
+        assertEquals(0, run("-m", "ctr-aes256", "-n", "16"));
+
+        assertTrue(stdout.toString(StandardCharsets.US_ASCII).matches("[0-9a-f]{32}\n"));
+    }
+
+    @Test
+    public void rejects_unknown_options() throws IOException {
+        assertEquals(2, run("--format", "base64"));
+
+        assertThat(stderr.toString(StandardCharsets.US_ASCII), containsString("usage:"));
+    }
+
+    @Test
+    public void rejects_empty_chunks() throws IOException {
+        assertEquals(2, run("-c", "0"));
+
+        assertThat(stderr.toString(StandardCharsets.US_ASCII), containsString("usage:"));
+        assertEquals(0, stdout.size());
+    }
+
+    @Test
+    public void rejects_testing_fewer_bits_than_the_battery_needs() throws IOException {
+        assertEquals(2, run("-n", "0", "-t"));
+        assertEquals(2, run("-n", "12", "--test"));
+
+        assertThat(stderr.toString(StandardCharsets.US_ASCII), containsString("usage:"));
+        assertEquals(0, stdout.size());
+    }
+
+    @Test
+    public void sizes_take_binary_suffixes() {
+        assertEquals(1000, Main.parseSize("1000"));
+        assertEquals(3L << 30, Main.parseSize("3G"));
+        assertEquals(16L << 10, Main.parseSize("16k"));
+    }
+
+    private int run(String... args) throws IOException {
+        return Main.run(args, Channels.newChannel(stdout), new PrintStream(stderr, true, StandardCharsets.US_ASCII));
+    }
+}
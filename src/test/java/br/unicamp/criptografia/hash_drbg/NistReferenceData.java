@@ -0,0 +1,49 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import java.math.BigInteger;
+
+/**
+ * Reference inputs of the NIST SP 800-22 examples.
+ */
+final class NistReferenceData {
+    static final String RANDOM_100_BITS = "11001001000011111101101010100010001000010110100" +
+            "01100001000110100110001001100011001100010100010111000";
+    private static final int E_LENGTH = 1_000_000;
+    private static BitSequence e;
+
+    private NistReferenceData() {
+    }
+
+    /**
+     * @return the first 1,000,000 bits of the binary expansion of e, as in the {@code data.e} file of the NIST
+     * Statistical Test Suite
+     */
+    static synchronized BitSequence e() {
+        if (e == null) {
+            int terms = 1;
+            double bits = 0;
+            while (bits < E_LENGTH + 64) {
+                terms++;
+                bits += Math.log(terms) / Math.log(2);
+            }
+            BigInteger[] series = inverseFactorialSum(0, terms);
+            // e = 1 + P / Q; the integer part "10" takes the first two bits
+            BigInteger scaled = series[0].add(series[1]).shiftLeft(E_LENGTH - 2).divide(series[1]);
+            e = BitSequence.fromString(scaled.toString(2));
+        }
+        return e;
+    }
+
+    /**
+     * Binary splitting of sum_{k = a + 1}^{b} a! / k!, returned as {P, Q}.
+     */
+    private static BigInteger[] inverseFactorialSum(long a, long b) {
+        if (b - a == 1) {
+            return new BigInteger[]{BigInteger.ONE, BigInteger.valueOf(b)};
+        }
+        long middle = (a + b) / 2;
+        BigInteger[] left = inverseFactorialSum(a, middle);
+        BigInteger[] right = inverseFactorialSum(middle, b);
+        return new BigInteger[]{left[0].multiply(right[1]).add(right[0]), left[1].multiply(right[1])};
+    }
+}
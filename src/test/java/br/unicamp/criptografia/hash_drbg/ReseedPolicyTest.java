@@ -0,0 +1,168 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.bouncycastle.crypto.prng.EntropySourceProvider;
+import org.junit.Test;
+
+import java.security.InvalidParameterException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+
+public class ReseedPolicyTest {
+    private final AtomicInteger entropyReads = new AtomicInteger();
+
+    @Test
+    public void whenExhausted_reads_entropy_once() {
+        BouncyCastleHashDRBG drbg = newDrbg(ReseedPolicy.whenExhausted());
+        for (int i = 0; i < 100; i++) {
+            drbg.generate();
+        }
+
+        assertEquals(1, entropyReads.get());
+    }
+
+    @Test
+    public void everyRequest_reseeds_each_request() {
+        BouncyCastleHashDRBG drbg = newDrbg(ReseedPolicy.everyRequest());
+        for (int i = 0; i < 10; i++) {
+            drbg.generate();
+        }
+        // one large call is several requests
+        drbg.generate(new byte[3 * BouncyCastleHashDRBG.MAX_BYTES_PER_REQUEST], 0,
+                3 * BouncyCastleHashDRBG.MAX_BYTES_PER_REQUEST);
+
+        assertEquals(1 + 10 + 3, entropyReads.get());
+    }
+
+    @Test
+    public void afterRequests_reseeds_within_the_budget() {
+        BouncyCastleHashDRBG drbg = newDrbg(ReseedPolicy.afterRequests(4));
+        for (int i = 0; i < 40; i++) {
+            drbg.generate();
+        }
+
+        // in the background from the fourth request on, or before the fifth
+        assertThat(entropyReads.get(), both(greaterThanOrEqualTo(1 + 9)).and(lessThanOrEqualTo(1 + 14 + 1)));
+    }
+
+    @Test
+    public void afterBytes_reseeds_within_the_budget() {
+        BouncyCastleHashDRBG drbg = newDrbg(ReseedPolicy.afterBytes(1000));
+        byte[] output = new byte[100];
+        for (int i = 0; i < 100; i++) {
+            drbg.generate(output, 0, output.length);
+        }
+
+        assertThat(entropyReads.get(), both(greaterThanOrEqualTo(1 + 9)).and(lessThanOrEqualTo(1 + 14 + 1)));
+    }
+
+    @Test
+    public void timer_reseeds_an_idle_generator_on_its_next_request() throws InterruptedException {
+        BouncyCastleHashDRBG drbg = newDrbg(ReseedPolicy.every(Duration.ofMillis(50)));
+        drbg.generate();
+        int reads = entropyReads.get();
+        Thread.sleep(60);
+
+        drbg.generate();
+
+        assertThat(entropyReads.get(), greaterThan(reads));
+    }
+
+    @Test
+    public void reseeds_in_the_background() throws InterruptedException {
+        BouncyCastleHashDRBG drbg = newDrbg(ReseedPolicy.afterRequests(4));
+        for (int i = 0; i < 4; i++) {
+            drbg.generate();
+        }
+
+        for (int i = 0; i < 100 && entropyReads.get() < 2; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, entropyReads.get());
+    }
+
+    @Test
+    public void failed_background_reseed_is_retried_by_the_next_request() throws InterruptedException {
+        // the first background reseed reads the second entropy input, which fails
+        BouncyCastleHashDRBG drbg = newDrbg(ReseedPolicy.afterRequests(100),
+                TestEntropy.failingOnce(TestEntropy.seeded(0), 2));
+        for (int i = 0; i < 76; i++) {
+            drbg.generate();
+        }
+        for (int i = 0; i < 100 && entropyReads.get() < 2; i++) {
+            Thread.sleep(10);
+        }
+
+        // well within the budget of 100 requests
+        for (int i = 0; i < 20 && entropyReads.get() < 3; i++) {
+            Thread.sleep(10);
+            drbg.generate();
+        }
+        assertEquals(3, entropyReads.get());
+
+        // and background reseeds go on
+        for (int i = 0; i < 76; i++) {
+            drbg.generate();
+        }
+        for (int i = 0; i < 100 && entropyReads.get() < 4; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(4, entropyReads.get());
+    }
+
+    @Test
+    public void concurrent_requests_are_serialized() throws InterruptedException {
+        BouncyCastleHashDRBG drbg = newDrbg(ReseedPolicy.afterBytes(4096));
+        List<Thread> threads = new ArrayList<>();
+        byte[][] outputs = new byte[4][100_000];
+        for (byte[] output : outputs) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int offset = 0; offset < output.length; offset += 1000) {
+                    drbg.generate(output, offset, 1000);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // requests interleaved without the lock would repeat or corrupt the DRBG state
+        Set<BitSequence> requests = new HashSet<>();
+        for (byte[] output : outputs) {
+            for (int offset = 0; offset < output.length; offset += 1000) {
+                requests.add(BitSequence.fromBytes(output, offset, 1000));
+            }
+        }
+        assertEquals(4 * 100, requests.size());
+        assertThat(entropyReads.get(), greaterThan(4 * 100_000 / 4096));
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void rejects_empty_budgets() {
+        ReseedPolicy.afterBytes(0);
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void rejects_negative_intervals() {
+        ReseedPolicy.every(Duration.ofSeconds(-1));
+    }
+
+    private BouncyCastleHashDRBG newDrbg(ReseedPolicy policy) {
+        return newDrbg(policy, TestEntropy.seeded(0));
+    }
+
+    private BouncyCastleHashDRBG newDrbg(ReseedPolicy policy, EntropySourceProvider entropy) {
+        return new BouncyCastleHashDRBG(CryptoHelper.generateNonce(128), CryptoHelper.generatePersonalizationString(),
+                policy, TestEntropy.counting(entropy, entropyReads));
+    }
+}
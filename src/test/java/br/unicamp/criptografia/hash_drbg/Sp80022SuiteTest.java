@@ -0,0 +1,520 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.apache.commons.math3.special.Erf;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * P-values from the examples of each test description (2.x.8) and from the e expansion results of Appendix B.
+ */
+public class Sp80022SuiteTest {
+    private static final double TOLERANCE = 1e-6;
+    private static final double ALPHA = Sp80022Suite.DEFAULT_SIGNIFICANCE_LEVEL;
+    private static final BitSequence NIST_EXAMPLE_RANDOM_100_BITS =
+            BitSequence.fromString(NistReferenceData.RANDOM_100_BITS);
+
+    @Test
+    public void frequency_NIST_Example() {
+        assertEquals(0.109599, pValue(new FrequencyTest(), NIST_EXAMPLE_RANDOM_100_BITS), TOLERANCE);
+        assertEquals(0.527089, pValue(new FrequencyTest(), BitSequence.fromString("1011010101")), TOLERANCE);
+    }
+
+    @Test
+    public void blockFrequency_NIST_Example() {
+        assertEquals(0.706438, pValue(new BlockFrequencyTest(10), NIST_EXAMPLE_RANDOM_100_BITS), TOLERANCE);
+        assertEquals(0.801252, pValue(new BlockFrequencyTest(3), BitSequence.fromString("0110011010")),
+                TOLERANCE);
+    }
+
+    @Test
+    public void runs_NIST_Example() {
+        assertEquals(0.147232, pValue(new RunsTest(), BitSequence.fromString("1001101011")), TOLERANCE);
+        assertEquals(0.500798, pValue(new RunsTest(), NIST_EXAMPLE_RANDOM_100_BITS), TOLERANCE);
+    }
+
+    @Test
+    public void runs_is_not_run_when_the_frequency_prerequisite_fails() {
+        TestResult result = new RunsTest().run(BitSequence.fromString("1".repeat(90) + "0".repeat(10)), ALPHA).get(0);
+
+        assertEquals(0.0, result.pValue(), 0.0);
+        assertFalse(result.passed());
+    }
+
+    @Test
+    public void runs_transitions_span_words() {
+        BitSequence sequence = NistReferenceData.e().slice(3, 1000);
+        String bits = sequence.toString();
+        long expected = 0;
+        for (int k = 0; k < bits.length() - 1; k++) {
+            if (bits.charAt(k) != bits.charAt(k + 1)) {
+                expected++;
+            }
+        }
+
+        assertEquals(expected, RunsTest.transitions(sequence));
+    }
+
+    @Test
+    public void longestRunOfOnes_NIST_Example() {
+        BitSequence sequence = BitSequence.fromString("11001100000101010110110001001100111000000000001" +
+                "001001101010100010001001111010110100000001101011111001100111001101101100010110010");
+
+        assertEquals(0.180609, pValue(new LongestRunOfOnesTest(8), sequence), 1e-4);
+    }
+
+    @Test
+    public void longestRunOfOnes_probabilities_of_the_2_4_4_tables() {
+        assertArrayEquals(new double[]{0.2148, 0.3672, 0.2305, 0.1875},
+                new LongestRunOfOnesTest(8).probabilities(), 1e-4);
+        assertArrayEquals(new double[]{0.1174, 0.2430, 0.2493, 0.1752, 0.1027, 0.1124},
+                new LongestRunOfOnesTest(128).probabilities(), 1e-4);
+        // the tables for larger blocks are approximations
+        assertArrayEquals(new double[]{0.0882, 0.2092, 0.2483, 0.1933, 0.1208, 0.0675, 0.0727},
+                new LongestRunOfOnesTest(10000).probabilities(), 0.002);
+    }
+
+    @Test
+    public void longestRunOfOnes_any_block_length() {
+        BitSequence e = NistReferenceData.e();
+        for (int m : new int[]{64, 256, 4096}) {
+            LongestRunOfOnesTest test = new LongestRunOfOnesTest(m);
+            long[] expected = new long[test.numberOfClasses()];
+            String bits = e.toString();
+            for (int block = 0; block < e.length() / m; block++) {
+                int longest = 0;
+                int run = 0;
+                for (int i = block * m; i < (block + 1) * m; i++) {
+                    run = bits.charAt(i) == '1' ? run + 1 : 0;
+                    longest = Math.max(longest, run);
+                }
+                expected[test.runClass(longest)]++;
+            }
+
+            assertArrayEquals("M = " + m, expected, test.frequencies(e));
+            assertTrue("M = " + m, test.run(e, ALPHA).get(0).passed());
+        }
+    }
+
+    @Test
+    public void binaryMatrixRank_NIST_Example() {
+        BitSequence sequence = BitSequence.fromString("01011001001010101101");
+
+        assertEquals(0.741948, pValue(new BinaryMatrixRankTest(3, 3), sequence), 1e-4);
+    }
+
+    @Test
+    public void binaryMatrixRank_packed_rows() {
+        assertEquals(2, BinaryMatrixRankTest.calculateBinaryRank(new int[]{0b010, 0b110, 0b010}, 3));
+        assertEquals(3, BinaryMatrixRankTest.calculateBinaryRank(new int[]{0b010, 0b101, 0b011}, 3));
+        assertEquals(2, BinaryMatrixRankTest.calculateBinaryRank(new int[]{0b000, 0b011, 0b001}, 3));
+        assertEquals(0, BinaryMatrixRankTest.calculateBinaryRank(new int[32], 32));
+    }
+
+    @Test
+    public void binaryMatrixRank_fork_join_matches_one_thread() {
+        byte[] bytes = new byte[1 << 20];
+        new Random(42).nextBytes(bytes);
+        BitSequence sequence = BitSequence.fromBytes(bytes);
+        BinaryMatrixRankTest test = new BinaryMatrixRankTest();
+        long disjointBlocksN = sequence.length() / (32 * 32);
+
+        assertArrayEquals(test.getFullDeficientAndLowerRanks(sequence, 0, disjointBlocksN),
+                test.getFullDeficientAndLowerRanks(sequence, disjointBlocksN));
+    }
+
+    /**
+     * The N_1 counts printed in 2.6.8 (4 and 46) do not follow from the moduli of their sequences, which give 5 and
+     * 48, as the NIST reference implementation does too. The printed N_1 are checked against their printed P-values,
+     * and the example sequences through the whole test against the N_1 their moduli give.
+     */
+    @Test
+    public void discreteFourierTransform_NIST_Example() {
+        assertEquals(0.029523, DiscreteFourierTransformTest.evaluate(4, 10, ALPHA).pValue(), TOLERANCE);
+        assertEquals(0.168669, DiscreteFourierTransformTest.evaluate(46, 100, ALPHA).pValue(), TOLERANCE);
+        assertEquals(-2.176429, DiscreteFourierTransformTest.evaluate(4, 10, ALPHA).statistic(), TOLERANCE);
+
+        BitSequence tenBits = BitSequence.fromString("1001010011");
+        assertEquals(5, peaksBelowThreshold("1001010011"));
+        assertEquals(DiscreteFourierTransformTest.evaluate(5, 10, ALPHA),
+                new DiscreteFourierTransformTest().run(tenBits, ALPHA).get(0));
+        assertEquals(48, peaksBelowThreshold(NistReferenceData.RANDOM_100_BITS));
+        TestResult example = new DiscreteFourierTransformTest().run(NIST_EXAMPLE_RANDOM_100_BITS, ALPHA).get(0);
+        assertEquals(DiscreteFourierTransformTest.evaluate(48, 100, ALPHA), example);
+        assertEquals(0.646355, example.pValue(), TOLERANCE);
+    }
+
+    /**
+     * N_1 of 2.6.4 (4) and (6), from the DFT definition rather than {@link RealFft}
+     */
+    private static int peaksBelowThreshold(String bits) {
+        int n = bits.length();
+        double threshold = Math.sqrt(Math.log(1 / 0.05) * n);
+        int peaks = 0;
+        for (int k = 0; k < n / 2; k++) {
+            double re = 0;
+            double im = 0;
+            for (int j = 0; j < n; j++) {
+                double x = bits.charAt(j) == '1' ? 1 : -1;
+                double angle = 2 * Math.PI * ((long) j * k % n) / n;
+                re += x * Math.cos(angle);
+                im -= x * Math.sin(angle);
+            }
+            if (Math.hypot(re, im) < threshold) {
+                peaks++;
+            }
+        }
+        return peaks;
+    }
+
+    @Test
+    public void realFft_matches_the_DFT_definition() {
+        Random random = new Random(7);
+        // powers of two, mixed radix, odd, and prime factors left to Bluestein
+        for (int n : new int[]{2, 3, 8, 10, 45, 64, 100, 210, 1000, 1024, 3 * 5 * 7 * 8, 4 * 37, 2 * 1009, 1009}) {
+            double[] input = new double[n];
+            for (int j = 0; j < n; j++) {
+                input[j] = random.nextBoolean() ? 1 : -1;
+            }
+            double[] output = input.clone();
+
+            RealFft.forLength(n).transform(output);
+
+            for (int k = 0; k < n / 2; k++) {
+                double re = 0;
+                double im = 0;
+                for (int j = 0; j < n; j++) {
+                    double angle = 2 * Math.PI * ((long) j * k % n) / n;
+                    re += input[j] * Math.cos(angle);
+                    im -= input[j] * Math.sin(angle);
+                }
+                assertEquals("n = " + n + ", Re X_" + k, re, output[2 * k], 1e-8 * n);
+                assertEquals("n = " + n + ", Im X_" + k, im, output[2 * k + 1], 1e-8 * n);
+            }
+        }
+    }
+
+    @Test
+    public void nonOverlappingTemplate_NIST_Example() {
+        List<TestResult> results = new NonOverlappingTemplateTest(3, 2)
+                .run(BitSequence.fromString("10100100101110010110"), ALPHA);
+
+        assertEquals(List.of("NonOverlappingTemplate-001", "NonOverlappingTemplate-011",
+                "NonOverlappingTemplate-100", "NonOverlappingTemplate-110"),
+                results.stream().map(TestResult::name).toList());
+        assertEquals(2.133333, results.get(0).statistic(), TOLERANCE);
+        assertEquals(0.344154, results.get(0).pValue(), TOLERANCE);
+    }
+
+    @Test
+    public void nonOverlappingTemplate_aperiodic_template_counts() {
+        // the number of templates in each file of the NIST template directory
+        int[] counts = {2, 4, 6, 12, 20, 40, 74, 148, 284};
+        for (int m = 2; m <= 10; m++) {
+            assertEquals("m = " + m, counts[m - 2], NonOverlappingTemplateTest.aperiodicTemplates(m).length);
+        }
+    }
+
+    @Test
+    public void nonOverlappingTemplate_histogram_matches_a_restarting_scan() {
+        String bits = NistReferenceData.e().slice(1000, 4000).toString();
+        int m = 5;
+        int blocks = 4;
+        int blockLength = bits.length() / blocks;
+
+        List<TestResult> results = new NonOverlappingTemplateTest(m, blocks).run(BitSequence.fromString(bits), ALPHA);
+
+        int[] templates = NonOverlappingTemplateTest.aperiodicTemplates(m);
+        for (int t = 0; t < templates.length; t++) {
+            String template = results.get(t).name().substring("NonOverlappingTemplate-".length());
+            long[] matches = new long[blocks];
+            for (int j = 0; j < blocks; j++) {
+                String block = bits.substring(j * blockLength, (j + 1) * blockLength);
+                for (int i = 0; i + m <= blockLength; ) {
+                    if (block.startsWith(template, i)) {
+                        matches[j]++;
+                        i += m;
+                    } else {
+                        i++;
+                    }
+                }
+            }
+            assertEquals(template, NonOverlappingTemplateTest.evaluate(results.get(t).name(), matches,
+                    blockLength, m, ALPHA), results.get(t));
+        }
+    }
+
+    /**
+     * 2.8.8 derives pi from the approximation of 2.8.4 (4), while the test itself uses the exact probabilities. Its
+     * printed P-value, 0.274932, does not follow from its chi-square with 5 degrees of freedom.
+     */
+    @Test
+    public void overlappingTemplate_NIST_Example() {
+        double[] approximatePi = {0.324652, 0.182617, 0.142670, 0.106645, 0.077147, 0.166269};
+        TestResult result = OverlappingTemplateTest.evaluate(new long[]{0, 1, 1, 1, 1, 1}, approximatePi, ALPHA);
+
+        assertEquals(3.167729, result.statistic(), 1e-5);
+    }
+
+    @Test
+    public void overlappingTemplate_probabilities_of_the_NIST_reference_implementation() {
+        assertArrayEquals(new double[]{0.364091, 0.185659, 0.139381, 0.100571, 0.0704323, 0.139865},
+                OverlappingTemplateTest.probabilities(9, 1032, 5), 1e-6);
+    }
+
+    @Test
+    public void universal_NIST_Example() {
+        List<TestResult> results = new MaurersUniversalTest(2, 4)
+                .run(BitSequence.fromString("01011010011101010111"), ALPHA);
+
+        assertEquals(1.1949875, results.get(0).statistic(), TOLERANCE);
+        // 2.9.8 gets 0.767189 from sigma = sqrt(variance), leaving out the c / sqrt(K) of 2.9.4 (5)
+        assertEquals(0.767189, Erf.erfc((1.5374383 - results.get(0).statistic()) / Math.sqrt(2 * 1.338)), TOLERANCE);
+    }
+
+    @Test
+    public void universal_block_length_follows_the_recommended_lengths() {
+        assertEquals(0, MaurersUniversalTest.blockLength(387_839));
+        assertEquals(6, MaurersUniversalTest.blockLength(387_840));
+        assertEquals(7, MaurersUniversalTest.blockLength(1_000_000));
+        assertEquals(16, MaurersUniversalTest.blockLength(2_000_000_000));
+    }
+
+    @Test
+    public void linearComplexity_NIST_Example() {
+        BitSequence sequence = BitSequence.fromString("1101011110001");
+
+        assertEquals(4, LinearComplexityTest.linearComplexity(sequence, 0, 13));
+        assertEquals(0.845406, pValue(new LinearComplexityTest(1000), NistReferenceData.e()), TOLERANCE);
+    }
+
+    @Test
+    public void linearComplexity_packed_Berlekamp_Massey_matches_one_bit_per_int() {
+        Random random = new Random(3);
+        for (int length : new int[]{1, 2, 63, 64, 65, 200, 500, 1000, 1031}) {
+            byte[] bytes = new byte[length / 8 + 9];
+            random.nextBytes(bytes);
+            BitSequence sequence = BitSequence.fromBytes(bytes);
+            int from = random.nextInt(64);
+            int[] bits = new int[length];
+            for (int i = 0; i < length; i++) {
+                bits[i] = sequence.bit(from + i);
+            }
+
+            assertEquals("length " + length, berlekampMassey(bits),
+                    LinearComplexityTest.linearComplexity(sequence, from, length));
+        }
+        // an LFSR of length 1 and one of maximal length
+        assertEquals(1, LinearComplexityTest.linearComplexity(BitSequence.fromString("1".repeat(500)), 0, 500));
+        assertEquals(500, LinearComplexityTest.linearComplexity(
+                BitSequence.fromString("0".repeat(499) + "1"), 0, 500));
+    }
+
+    @Test
+    public void serial_NIST_Example() {
+        List<TestResult> results = new SerialTest(3).run(BitSequence.fromString("0011011101"), ALPHA);
+
+        assertEquals(1.6, results.get(0).statistic(), TOLERANCE);
+        assertEquals(0.8, results.get(1).statistic(), TOLERANCE);
+        assertEquals(0.808792, results.get(0).pValue(), TOLERANCE);
+        assertEquals(0.670320, results.get(1).pValue(), TOLERANCE);
+    }
+
+    @Test
+    public void approximateEntropy_NIST_Example() {
+        assertEquals(0.261961, pValue(new ApproximateEntropyTest(3), BitSequence.fromString("0100110101")),
+                TOLERANCE);
+    }
+
+    @Test
+    public void folded_pattern_counts_match_a_rescan() {
+        BitSequence sequence = NistReferenceData.e().slice(0, 10_007);
+        long[] counts = SerialTest.patternCounts(sequence, 12);
+        for (int m = 11; m >= 1; m--) {
+            counts = SerialTest.fold(counts);
+            assertArrayEquals("m = " + m, SerialTest.patternCounts(sequence, m), counts);
+        }
+    }
+
+    @Test
+    public void cumulativeSums_NIST_Example() {
+        assertEquals(0.4116588, pValue(new RandomWalkTest(), BitSequence.fromString("1011010111")), TOLERANCE);
+
+        List<TestResult> results = new RandomWalkTest().run(NIST_EXAMPLE_RANDOM_100_BITS, ALPHA);
+        assertEquals(List.of("CumulativeSums-forward", "CumulativeSums-reverse"),
+                results.stream().map(TestResult::name).toList());
+        assertEquals(0.219194, results.get(0).pValue(), TOLERANCE);
+        assertEquals(0.114866, results.get(1).pValue(), TOLERANCE);
+    }
+
+    @Test
+    public void randomExcursions_NIST_Example() {
+        RandomWalk walk = RandomWalk.walk(BitSequence.fromString("0110110101"));
+
+        assertEquals(3, walk.cycles());
+        assertArrayEquals(new long[]{1, 1, 0, 1, 0, 0}, walk.frequencies(1));
+        // 2.14.8 prints chi^2 = 4.333033 for the exact 13/3
+        TestResult result = RandomWalk.randomExcursionsResult(1, walk.frequencies(1), walk.cycles(), ALPHA);
+        assertEquals(13.0 / 3, result.statistic(), TOLERANCE);
+        assertEquals(0.502529, result.pValue(), 1e-4);
+    }
+
+    @Test
+    public void randomExcursionsVariant_NIST_Example() {
+        RandomWalk walk = RandomWalk.walk(BitSequence.fromString("0110110101"));
+
+        assertEquals(4, walk.visits(1));
+        assertEquals(0.683091,
+                RandomWalk.randomExcursionsVariantResult(1, walk.visits(1), walk.cycles(), ALPHA).pValue(),
+                TOLERANCE);
+    }
+
+    @Test
+    public void randomExcursions_need_500_cycles() {
+        RandomWalk walk = RandomWalk.walk(NIST_EXAMPLE_RANDOM_100_BITS);
+
+        assertTrue(walk.randomExcursions(ALPHA).isEmpty());
+        assertTrue(walk.randomExcursionsVariant(ALPHA).isEmpty());
+    }
+
+    @Test
+    public void randomWalk_byte_tables_match_a_step_at_a_time() {
+        // starts near zero, wanders off past the table threshold and comes back
+        BitSequence sequence = NistReferenceData.e().slice(5, 200_003);
+        RandomWalk walk = RandomWalk.walk(sequence);
+
+        long sum = 0;
+        long maximum = 0;
+        long minimum = 0;
+        long cycles = 0;
+        long[] visits = new long[19];
+        long[][] frequencies = new long[9][RandomWalk.LAST_CLASS + 1];
+        long[] cycleVisits = new long[9];
+        for (long k = 0; k < sequence.length(); k++) {
+            sum += sequence.bit(k) == 1 ? 1 : -1;
+            maximum = Math.max(maximum, sum);
+            minimum = Math.min(minimum, sum);
+            if (Math.abs(sum) <= 9) {
+                visits[(int) sum + 9]++;
+            }
+            if (Math.abs(sum) <= 4) {
+                cycleVisits[(int) sum + 4]++;
+            }
+            if (sum == 0 || k == sequence.length() - 1) {
+                for (int x = 0; x < 9; x++) {
+                    frequencies[x][(int) Math.min(cycleVisits[x], RandomWalk.LAST_CLASS)]++;
+                    cycleVisits[x] = 0;
+                }
+                cycles++;
+            }
+        }
+
+        List<TestResult> cumulativeSums = walk.cumulativeSums(ALPHA);
+        assertEquals(Math.max(maximum, -minimum), cumulativeSums.get(0).statistic(), 0);
+        assertEquals(Math.max(sum - minimum, maximum - sum), cumulativeSums.get(1).statistic(), 0);
+        assertEquals(cycles, walk.cycles());
+        for (int x = -9; x <= 9; x++) {
+            if (x != 0) {
+                assertEquals("x = " + x, visits[x + 9], walk.visits(x));
+            }
+            if (x != 0 && Math.abs(x) <= 4) {
+                assertArrayEquals("x = " + x, frequencies[x + 4], walk.frequencies(x));
+            }
+        }
+    }
+
+    @Test
+    public void e_expansion_Appendix_B() {
+        BitSequence e = NistReferenceData.e();
+
+        assertEquals(0.953749, pValue(new FrequencyTest(), e), TOLERANCE);
+        assertEquals(0.619340, pValue(new BlockFrequencyTest(100), e), TOLERANCE);
+        assertEquals(0.561917, pValue(new RunsTest(), e), TOLERANCE);
+        // Appendix B still has the P-value from the approximate probabilities of the 2.4.4 table
+        double[] tabulatedPi = {0.0882, 0.2092, 0.2483, 0.1933, 0.1208, 0.0675, 0.0727};
+        long[] runFrequencies = new LongestRunOfOnesTest(10000).frequencies(e);
+        assertEquals(0.718945, LongestRunOfOnesTest.evaluate(runFrequencies, tabulatedPi, ALPHA).pValue(), 1e-4);
+        assertEquals(0.306156, pValue(new BinaryMatrixRankTest(), e), 1e-4);
+        assertEquals(0.847187, pValue(new DiscreteFourierTransformTest(), e), TOLERANCE);
+        assertEquals(0.078790, pValue(new NonOverlappingTemplateTest(), e), TOLERANCE);
+        assertEquals(0.282568, pValue(new MaurersUniversalTest(), e), TOLERANCE);
+        assertEquals(0.826335, pValue(new LinearComplexityTest(), e), TOLERANCE);
+        List<TestResult> serial = new SerialTest(16).run(e, ALPHA);
+        assertEquals(0.766182, serial.get(0).pValue(), TOLERANCE);
+        assertEquals(0.462921, serial.get(1).pValue(), TOLERANCE);
+        assertEquals(0.700073, pValue(new ApproximateEntropyTest(10), e), TOLERANCE);
+        // Appendix B still has the P-value from the approximate probabilities of the original suite
+        double[] approximatePi = {0.367879, 0.183940, 0.137955, 0.099634, 0.069935, 0.140657};
+        long[] frequencies = new OverlappingTemplateTest().frequencies(e);
+        assertEquals(0.110434, OverlappingTemplateTest.evaluate(frequencies, approximatePi, ALPHA).pValue(), 1e-5);
+        List<TestResult> randomWalk = new RandomWalkTest().run(e, ALPHA);
+        assertEquals(0.669887, randomWalk.get(0).pValue(), TOLERANCE);
+        assertEquals(0.724266, randomWalk.get(1).pValue(), TOLERANCE);
+        assertEquals(0.786868, result(randomWalk, "RandomExcursions-x=+1").pValue(), TOLERANCE);
+        assertEquals(0.826009, result(randomWalk, "RandomExcursionsVariant-x=-1").pValue(), TOLERANCE);
+    }
+
+    @Test
+    public void suite_runs_every_applicable_test() {
+        List<TestResult> results = new Sp80022Suite().run(NistReferenceData.e());
+
+        List<String> names = results.stream().map(TestResult::name).toList();
+        assertEquals(List.of("Frequency", "BlockFrequency", "Runs", "LongestRun", "Rank", "FFT"),
+                names.subList(0, 6));
+        assertEquals(148, names.stream().filter(name -> name.startsWith("NonOverlappingTemplate-")).count());
+        assertEquals(List.of("OverlappingTemplate", "Universal", "LinearComplexity", "Serial-1", "Serial-2",
+                "ApproximateEntropy", "CumulativeSums-forward", "CumulativeSums-reverse"),
+                names.subList(6 + 148, 6 + 148 + 8));
+        assertEquals(8, names.stream().filter(name -> name.startsWith("RandomExcursions-")).count());
+        assertEquals(18, names.stream().filter(name -> name.startsWith("RandomExcursionsVariant-")).count());
+        assertEquals(6 + 148 + 8 + 8 + 18, names.size());
+        // about one in a hundred templates fails at alpha = 0.01, and e fails random excursions at x = -1
+        results.stream()
+                .filter(result -> !result.name().startsWith("NonOverlappingTemplate-"))
+                .filter(result -> !result.name().equals("RandomExcursions-x=-1"))
+                .forEach(result -> assertTrue(result.name(), result.passed()));
+        assertTrue(results.stream().filter(result -> !result.passed()).count() <= 5);
+    }
+
+    private static int berlekampMassey(int[] s) {
+        int n = s.length;
+        int[] c = new int[n + 1];
+        int[] b = new int[n + 1];
+        c[0] = 1;
+        b[0] = 1;
+        int l = 0;
+        int m = -1;
+        for (int i = 0; i < n; i++) {
+            int d = s[i];
+            for (int j = 1; j <= l; j++) {
+                d ^= c[j] & s[i - j];
+            }
+            if (d == 1) {
+                int[] t = c.clone();
+                for (int j = 0; j + i - m <= n; j++) {
+                    c[j + i - m] ^= b[j];
+                }
+                if (2 * l <= i) {
+                    l = i + 1 - l;
+                    m = i;
+                    b = t;
+                }
+            }
+        }
+        return l;
+    }
+
+    private static TestResult result(List<TestResult> results, String name) {
+        return results.stream().filter(result -> result.name().equals(name)).findFirst().orElseThrow();
+    }
+
+    private static double pValue(Sp80022Test test, BitSequence sequence) {
+        return test.run(sequence, ALPHA).get(0).pValue();
+    }
+}
@@ -0,0 +1,85 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of one run of each SP 800-22 test, with the parameters {@link Sp80022Suite#defaultTests(long)} picks for the
+ * length. Below their recommended minimum length, the longest run test uses M = 8, the rank test 3 x 3 matrices,
+ * the overlapping template test m = 2 with M = 10 and the universal test L = 2 with Q = 4, as in the NIST
+ * examples.
+ * <p>
+ * {@code mvn -P benchmark verify -Dbenchmark=Sp80022TestBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class Sp80022TestBenchmark {
+
+    @Param({"Frequency", "BlockFrequency", "Runs", "LongestRun", "Rank", "FFT", "NonOverlappingTemplate",
+            "OverlappingTemplate", "Universal", "LinearComplexity", "Serial",
+            "ApproximateEntropy", "RandomWalk"})
+    public String test;
+
+    @Param({"1000", "1000000", "100000000"})
+    public int length;
+
+    private BitSequence sequence;
+    private Sp80022Test sp80022Test;
+
+    @Setup
+    public void setup() {
+        byte[] bytes = new byte[length / 8];
+        new Random(length).nextBytes(bytes);
+        sequence = BitSequence.fromBytes(bytes);
+        sp80022Test = newTest(test, length);
+    }
+
+    @Benchmark
+    public List<TestResult> run() {
+        return sp80022Test.run(sequence, Sp80022Suite.DEFAULT_SIGNIFICANCE_LEVEL);
+    }
+
+    private static Sp80022Test newTest(String name, long length) {
+        int matrixSize = BinaryMatrixRankTest.DEFAULT_MATRIX_SIZE;
+        return switch (name) {
+            case FrequencyTest.NAME -> new FrequencyTest();
+            case BlockFrequencyTest.NAME -> new BlockFrequencyTest(Sp80022Suite.getBlockFrequencyBlockSize(length));
+            case RunsTest.NAME -> new RunsTest();
+            case LongestRunOfOnesTest.NAME -> new LongestRunOfOnesTest(Sp80022Suite.getLongestRunBlockSize(length));
+            case BinaryMatrixRankTest.NAME -> length >= BinaryMatrixRankTest.minimumLength(matrixSize, matrixSize)
+                    ? new BinaryMatrixRankTest()
+                    : new BinaryMatrixRankTest(3, 3);
+            case DiscreteFourierTransformTest.NAME -> new DiscreteFourierTransformTest();
+            case NonOverlappingTemplateTest.NAME -> new NonOverlappingTemplateTest();
+            case OverlappingTemplateTest.NAME -> length >= OverlappingTemplateTest.DEFAULT_BLOCK_LENGTH
+                    ? new OverlappingTemplateTest()
+                    : new OverlappingTemplateTest(2, 10);
+            case MaurersUniversalTest.NAME -> length >= 387_840
+                    ? new MaurersUniversalTest()
+                    : new MaurersUniversalTest(2, 4);
+            case LinearComplexityTest.NAME -> new LinearComplexityTest();
+            case SerialTest.NAME -> new SerialTest(Math.max(2, Sp80022Suite.getSerialPatternLength(length)));
+            case ApproximateEntropyTest.NAME -> new ApproximateEntropyTest(
+                    Math.max(1, Sp80022Suite.getApproximateEntropyBlockLength(length)));
+            case RandomWalk.NAME -> new RandomWalkTest();
+            default -> throw new IllegalArgumentException("Unknown test: " + name);
+        };
+    }
+}
@@ -0,0 +1,131 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingSp80022SuiteTest {
+    private static final double ALPHA = Sp80022Suite.DEFAULT_SIGNIFICANCE_LEVEL;
+
+    @Test
+    public void byte_chunks_match_the_whole_sequence() {
+        BitSequence e = NistReferenceData.e();
+        byte[] bytes = toBytes(e);
+        List<StreamingSp80022Test> streaming = List.of(new FrequencyAccumulator(),
+                new BlockFrequencyAccumulator(100), new RunsAccumulator(), new LongestRunOfOnesAccumulator(10000),
+                new BinaryMatrixRankAccumulator(), new RandomWalk());
+        List<Sp80022Test> whole = List.of(new FrequencyTest(), new BlockFrequencyTest(100), new RunsTest(),
+                new LongestRunOfOnesTest(10000), new BinaryMatrixRankTest(), new RandomWalkTest());
+
+        Random random = new Random(7);
+        for (int offset = 0; offset < bytes.length; ) {
+            int length = Math.min(bytes.length - offset, 1 + random.nextInt(3000));
+            for (StreamingSp80022Test test : streaming) {
+                test.update(bytes, offset, length);
+            }
+            offset += length;
+        }
+
+        for (int i = 0; i < whole.size(); i++) {
+            assertEquals(whole.get(i).run(e, ALPHA), streaming.get(i).finish(ALPHA));
+        }
+    }
+
+    @Test
+    public void odd_bit_counts_match_the_whole_sequence() {
+        BitSequence sequence = NistReferenceData.e().slice(5, 20000);
+        List<StreamingSp80022Test> streaming = List.of(new FrequencyAccumulator(),
+                new BlockFrequencyAccumulator(13), new RunsAccumulator(), new LongestRunOfOnesAccumulator(128),
+                new BinaryMatrixRankAccumulator(new BinaryMatrixRankTest(5, 7)), new RandomWalk());
+        List<Sp80022Test> whole = List.of(new FrequencyTest(), new BlockFrequencyTest(13), new RunsTest(),
+                new LongestRunOfOnesTest(128), new BinaryMatrixRankTest(5, 7), new RandomWalkTest());
+
+        Random random = new Random(11);
+        for (long position = 0; position < sequence.length(); ) {
+            int bits = (int) Math.min(sequence.length() - position, 1 + random.nextInt(64));
+            long word = sequence.bits(position, bits) << (Long.SIZE - bits);
+            for (StreamingSp80022Test test : streaming) {
+                test.update(word, bits);
+            }
+            position += bits;
+        }
+
+        for (int i = 0; i < whole.size(); i++) {
+            assertEquals(whole.get(i).run(sequence, ALPHA), streaming.get(i).finish(ALPHA));
+        }
+    }
+
+    @Test
+    public void cumulativeSums_NIST_Example() {
+        CumulativeSumsAccumulator small = new CumulativeSumsAccumulator();
+        small.update(BitSequence.fromString("1011010111").word(0), 10);
+        assertEquals(0.4116588, small.finish(ALPHA).get(0).pValue(), 1e-6);
+
+        CumulativeSumsAccumulator large = new CumulativeSumsAccumulator();
+        BitSequence sequence = BitSequence.fromString(NistReferenceData.RANDOM_100_BITS);
+        large.update(sequence.word(0), 64);
+        large.update(sequence.word(1), 36);
+        List<TestResult> results = large.finish(ALPHA);
+
+        assertEquals(16, results.get(0).statistic(), 0);
+        assertEquals(0.219194, results.get(0).pValue(), 1e-6);
+        assertEquals(19, results.get(1).statistic(), 0);
+        assertEquals(0.114866, results.get(1).pValue(), 1e-6);
+    }
+
+    @Test
+    public void suite_streams_drbg_output() {
+        int chunkLength = 4096;
+        int chunks = 64;
+        StreamingSp80022Suite suite = new StreamingSp80022Suite(8L * chunkLength * chunks);
+        BouncyCastleHashDRBG drbg = new BouncyCastleHashDRBG(CryptoHelper.generateNonce(128),
+                CryptoHelper.generatePersonalizationString());
+        byte[] chunk = new byte[chunkLength];
+        for (int i = 0; i < chunks; i++) {
+            drbg.generate(chunk, 0, chunk.length);
+            suite.update(chunk);
+        }
+
+        List<String> names = suite.finish().stream().map(TestResult::name).toList();
+        assertEquals(List.of("Frequency", "BlockFrequency", "Runs", "LongestRun", "Rank", "CumulativeSums-forward",
+                "CumulativeSums-reverse"), names.subList(0, 7));
+        // the random excursions tests only report when the walk has at least 500 cycles
+        assertTrue(names.size() == 7 || names.size() == 7 + 8 + 18);
+        assertTrue(names.subList(7, names.size()).stream().allMatch(name -> name.startsWith("RandomExcursions")));
+    }
+
+    @Test
+    public void direct_buffers_stream_like_arrays() {
+        byte[] bytes = new byte[100_003];
+        new Random(23).nextBytes(bytes);
+        StreamingSp80022Suite fromArrays = new StreamingSp80022Suite(8L * bytes.length);
+        StreamingSp80022Suite fromBuffers = new StreamingSp80022Suite(8L * bytes.length);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        for (int offset = 0; offset < bytes.length; offset += 1001) {
+            int length = Math.min(1001, bytes.length - offset);
+            fromArrays.update(bytes, offset, length);
+            fromBuffers.update(buffer.slice(offset, length));
+        }
+
+        assertEquals(fromArrays.finish(), fromBuffers.finish());
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void rejects_sequences_below_the_minimum_length() {
+        new StreamingSp80022Suite(StreamingSp80022Suite.MINIMUM_LENGTH - 1);
+    }
+
+    static byte[] toBytes(BitSequence sequence) {
+        byte[] bytes = new byte[(int) (sequence.length() / 8)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) sequence.bits(8L * i, 8);
+        }
+        return bytes;
+    }
+}
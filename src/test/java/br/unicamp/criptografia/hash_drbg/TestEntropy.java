@@ -0,0 +1,97 @@
+package br.unicamp.criptografia.hash_drbg;
+
+import org.bouncycastle.crypto.prng.EntropySource;
+import org.bouncycastle.crypto.prng.EntropySourceProvider;
+
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Deterministic entropy sources, so the generators under test give the same output on every run.
+ */
+final class TestEntropy {
+
+    private TestEntropy() {
+    }
+
+    /**
+     * Entropy from a {@link Random} with the given seed, the same sequence for every provider with that seed.
+     */
+    static EntropySourceProvider seeded(long seed) {
+        Random random = new Random(seed);
+        return bits -> source(bits, () -> {
+            byte[] entropy = new byte[bits / 8];
+            random.nextBytes(entropy);
+            return entropy;
+        });
+    }
+
+    /**
+     * Entropy inputs of {@code value} repeated.
+     */
+    static EntropySourceProvider filled(byte value) {
+        return bits -> source(bits, () -> {
+            byte[] entropy = new byte[bits / 8];
+            Arrays.fill(entropy, value);
+            return entropy;
+        });
+    }
+
+    /**
+     * @param entropy the entropy inputs, removed in order, one per read
+     */
+    static EntropySource replaying(Deque<byte[]> entropy, int bits) {
+        return source(bits, entropy::remove);
+    }
+
+    /**
+     * @param reads incremented on every entropy input read from the provider's sources
+     */
+    static EntropySourceProvider counting(EntropySourceProvider provider, AtomicInteger reads) {
+        return bits -> {
+            EntropySource source = provider.get(bits);
+            return source(bits, () -> {
+                reads.incrementAndGet();
+                return source.getEntropy();
+            });
+        };
+    }
+
+    /**
+     * @param failingRead the read, counting from 1, that throws an {@link IllegalStateException} instead
+     */
+    static EntropySourceProvider failingOnce(EntropySourceProvider provider, int failingRead) {
+        AtomicInteger reads = new AtomicInteger();
+        return bits -> {
+            EntropySource source = provider.get(bits);
+            return source(bits, () -> {
+                if (reads.incrementAndGet() == failingRead) {
+                    throw new IllegalStateException("Entropy read " + failingRead + " fails");
+                }
+                return source.getEntropy();
+            });
+        };
+    }
+
+    private static EntropySource source(int bits, Supplier<byte[]> entropy) {
+        return new EntropySource() {
+            @Override
+            public boolean isPredictionResistant() {
+                return true;
+            }
+
+            @Override
+            public byte[] getEntropy() {
+                return entropy.get();
+            }
+
+            @Override
+            public int entropySize() {
+                return bits;
+            }
+        };
+    }
+}